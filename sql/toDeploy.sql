@@ -44,4 +44,47 @@ CREATE TABLE IF NOT EXISTS `auditlogs` (
   `TargetId` INT(11) NOT NULL,
   `CreatedAt` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
    PRIMARY KEY (`Id`)
-  ) ENGINE=InnoDB DEFAULT CHARSET=utf8
+  ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+# Index Number for cursor paging on search; InnoDB appends Id to secondary indexes so this covers (Number, Id)
+CREATE INDEX IX_Records_Number ON records (Number);
+CREATE INDEX IX_Containers_Number ON containers (Number);
+
+# Indexes for paging audit logs overall or by user or target; InnoDB appends Id, so each follows (CreatedAt, Id)
+CREATE INDEX IX_AuditLogs_CreatedAt ON auditlogs (CreatedAt);
+CREATE INDEX IX_AuditLogs_User ON auditlogs (UserId, CreatedAt);
+# Also serves the newest-first record and container history
+CREATE INDEX IX_AuditLogs_Target ON auditlogs (Target, TargetId, CreatedAt);
+
+# Counters for generated numbers; containers use one per year and location code, named CONTAINER:yyyy/LOC,
+# and generated record numbers one per number prefix, named e.g. RECORD:EDM-2018/ and seeded on first use
+CREATE TABLE IF NOT EXISTS `numbersequences` (
+  `Name` VARCHAR(64) NOT NULL,
+  `LastValue` INT(11) NOT NULL,
+   PRIMARY KEY (`Name`)
+  ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+# Seed the container sequences from the numbers already in use
+INSERT IGNORE INTO numbersequences (Name, LastValue)
+SELECT CONCAT('CONTAINER:', SUBSTRING_INDEX(Number, '/', 1), '/', UPPER(SUBSTRING_INDEX(Number, '-', -1))),
+       MAX(CAST(SUBSTRING(Number, 6, 3) AS UNSIGNED))
+FROM containers
+WHERE Number REGEXP '^[0-9]{4}/[0-9]{3}-'
+GROUP BY 1;
+
+# Volume family of each record: the number before the colon, and the volume after it (1 when there is none).
+# Stored generated columns, so MySQL keeps them in step with Number; binary collation like the LIKE BINARY lookups they replace.
+# A suffix that is not a number is left NULL rather than cast, which strict mode would reject
+ALTER TABLE records
+  ADD COLUMN BaseNumber VARCHAR(100) CHARACTER SET utf8 COLLATE utf8_bin
+      AS (SUBSTRING_INDEX(Number, ':', 1)) STORED,
+  ADD COLUMN Volume SMALLINT UNSIGNED
+      AS (CASE
+            WHEN LOCATE(':', Number) = 0 THEN 1
+            WHEN SUBSTRING_INDEX(Number, ':', -1) REGEXP '^[0-9]{1,4}$' THEN CAST(SUBSTRING_INDEX(Number, ':', -1) AS UNSIGNED)
+          END) STORED,
+  ADD INDEX IX_Records_Volume (BaseNumber, Volume);
+
+# Length of the whole note text in characters, on its first chunk, so lists can show it without reading the notes.
+# Left NULL on older rows, whose text is counted instead
+ALTER TABLE notes ADD Length INT(11) NULL;
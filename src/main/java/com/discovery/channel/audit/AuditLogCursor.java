@@ -0,0 +1,55 @@
+package com.discovery.channel.audit;
+
+import com.discovery.channel.exception.IllegalArgumentException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+/**
+ * Position in a list of audit log entries: the (CreatedAt, Id) of the last entry returned.
+ *
+ * Clients only ever see the encoded form and pass it back unchanged.
+ */
+@Getter
+@AllArgsConstructor
+public class AuditLogCursor {
+    private static final String SEPARATOR = ":";
+
+    private Timestamp createdAt;
+    private int id;
+
+    public static AuditLogCursor after(AuditLogEntry entry) {
+        return new AuditLogCursor(entry.getTimestamp(), entry.getId());
+    }
+
+    public String encode() {
+        String raw = createdAt.getTime() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor returned with a previous page
+     *
+     * @param cursor
+     * @return the cursor, or null for an empty cursor, meaning the first page
+     */
+    public static AuditLogCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(String.format("Invalid audit log cursor: %s.", cursor));
+            }
+            return new AuditLogCursor(new Timestamp(Long.parseLong(parts[0])), Integer.parseInt(parts[1]));
+        } catch (java.lang.IllegalArgumentException e) {
+            // Also covers NumberFormatException
+            throw new IllegalArgumentException(String.format("Invalid audit log cursor: %s.", cursor));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.discovery.channel.audit;
+
+import com.discovery.channel.exception.IllegalArgumentException;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of audit log entries matching optional filters, in (CreatedAt, Id) order.
+ *
+ * Only the filters that are set become part of the WHERE clause, so each combination can use the matching
+ * auditlogs index. Paging continues after the cursor rather than skipping an offset.
+ */
+public class AuditLogQuery {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private final List<String> conditions = new ArrayList<>();
+    private final List<Object> parameters = new ArrayList<>();
+    private final boolean newestFirst;
+    private final int limit;
+
+    /**
+     * @param userId only entries by this user, or null
+     * @param target only entries for this target type, or null
+     * @param targetId only entries for this target id, or null
+     * @param action only entries with this action, or null
+     * @param from only entries created at or after this time in epoch milliseconds, or null
+     * @param to only entries created before this time in epoch milliseconds, or null
+     * @param cursor nextCursor of the previous page, or empty for the first page
+     * @param newestFirst order by descending instead of ascending (CreatedAt, Id)
+     * @param limit maximum number of entries in the page
+     */
+    public AuditLogQuery(Integer userId, String target, Integer targetId, String action, Long from, Long to,
+                         String cursor, boolean newestFirst, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException(String.format("Limit must be between 1 and %d.", MAX_LIMIT));
+        }
+        this.newestFirst = newestFirst;
+        this.limit = limit;
+
+        if (userId != null) {
+            addCondition("UserId = ?", userId);
+        }
+        if (target != null) {
+            addCondition("Target = ?", parseTarget(target).getName());
+        }
+        if (targetId != null) {
+            addCondition("TargetId = ?", targetId);
+        }
+        if (action != null) {
+            addCondition("Action = ?", parseAction(action).getName());
+        }
+        if (from != null) {
+            addCondition("CreatedAt >= ?", new Timestamp(from));
+        }
+        if (to != null) {
+            addCondition("CreatedAt < ?", new Timestamp(to));
+        }
+
+        AuditLogCursor after = AuditLogCursor.decode(cursor);
+        if (after != null) {
+            String comparison = newestFirst ? "<" : ">";
+            conditions.add(String.format("(CreatedAt %1$s ? OR (CreatedAt = ? AND Id %1$s ?))", comparison));
+            parameters.add(after.getCreatedAt());
+            parameters.add(after.getCreatedAt());
+            parameters.add(after.getId());
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    private static final String GET_AUDIT_LOGS =
+            "SELECT Id, UserId, Action, Target, TargetId, CreatedAt " +
+            "FROM auditlogs " +
+            "%1$s" +
+            "ORDER BY CreatedAt %2$s, Id %2$s " +
+            "LIMIT ?";
+    /**
+     * @return the query for this page, fetching one extra entry to tell whether there is a next page
+     */
+    String toSql() {
+        String where = conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ";
+        return String.format(GET_AUDIT_LOGS, where, newestFirst ? "DESC" : "ASC");
+    }
+
+    void bind(PreparedStatement ps) throws SQLException {
+        int index = 1;
+        for (Object parameter : parameters) {
+            ps.setObject(index++, parameter);
+        }
+        ps.setInt(index, limit + 1);
+    }
+
+    private void addCondition(String condition, Object parameter) {
+        conditions.add(condition);
+        parameters.add(parameter);
+    }
+
+    private static AuditLogger.Target parseTarget(String target) {
+        for (AuditLogger.Target value : AuditLogger.Target.values()) {
+            if (value.getName().equalsIgnoreCase(target)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Invalid audit log target: %s.", target));
+    }
+
+    private static AuditLogger.ACTION parseAction(String action) {
+        for (AuditLogger.ACTION value : AuditLogger.ACTION.values()) {
+            if (value.getName().equalsIgnoreCase(action)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Invalid audit log action: %s.", action));
+    }
+}
@@ -0,0 +1,202 @@
+package com.discovery.channel.audit;
+
+import com.discovery.channel.database.DbConnect;
+import com.discovery.channel.properties.DefaultProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes audit log entries to the database in the background.
+ *
+ * Entries are queued and a single writer thread inserts them in groups with one multi-row INSERT, flushing
+ * when a group reaches FLUSH_SIZE entries or FLUSH_INTERVAL_MILLIS after its first entry. When the queue stays
+ * full for OFFER_TIMEOUT_MILLIS, or the writer is not running, the caller writes its entry itself, so entries
+ * are never discarded because of load. stop() writes whatever is still queued before returning.
+ */
+class AuditLogWriter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuditLogWriter.class);
+    private static final DefaultProperties PROPERTIES = DefaultProperties.getInstance();
+
+    private static final int QUEUE_CAPACITY = getIntProperty("AUDIT.QUEUE_CAPACITY", 10000);
+    private static final int FLUSH_SIZE = getIntProperty("AUDIT.FLUSH_SIZE", 100);
+    private static final long FLUSH_INTERVAL_MILLIS = getIntProperty("AUDIT.FLUSH_INTERVAL_MILLIS", 500);
+    private static final long OFFER_TIMEOUT_MILLIS = getIntProperty("AUDIT.OFFER_TIMEOUT_MILLIS", 50);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = getIntProperty("AUDIT.SHUTDOWN_TIMEOUT_MILLIS", 10000);
+
+    private static final BlockingQueue<AuditLogEntry> QUEUE = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static final String FULL_BATCH_INSERT = buildInsert(FLUSH_SIZE);
+
+    private static final AtomicLong ENQUEUED = new AtomicLong();
+    private static final AtomicLong WRITTEN = new AtomicLong();
+    private static final AtomicLong WRITTEN_BY_CALLER = new AtomicLong();
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static final AtomicLong FLUSHES = new AtomicLong();
+    private static final AtomicLong FLUSH_MILLIS = new AtomicLong();
+    private static final AtomicLong MAX_FLUSH_MILLIS = new AtomicLong();
+
+    private static Thread writer;
+    private static volatile boolean running;
+
+    // Hide constructor
+    private AuditLogWriter() {
+    }
+
+    /**
+     * Start the writer thread
+     */
+    static synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(AuditLogWriter::drain, "audit-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        LOGGER.info("Started audit log writer. Flush size {}, interval {}ms, queue capacity {}",
+                FLUSH_SIZE, FLUSH_INTERVAL_MILLIS, QUEUE_CAPACITY);
+    }
+
+    /**
+     * Stop the writer thread once everything queued has been written
+     */
+    static synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Anything the writer did not get to, or that raced with running being cleared
+        List<AuditLogEntry> remaining = new ArrayList<>();
+        QUEUE.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+        LOGGER.info("Stopped audit log writer");
+    }
+
+    /**
+     * Queue an entry, or write it directly if the writer is not running or cannot keep up
+     *
+     * @param entry
+     */
+    static void write(AuditLogEntry entry) {
+        if (running) {
+            try {
+                if (QUEUE.offer(entry, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    ENQUEUED.incrementAndGet();
+                    return;
+                }
+                LOGGER.warn("Audit log queue is full. Writing entry synchronously");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        WRITTEN_BY_CALLER.incrementAndGet();
+        flush(Collections.singletonList(entry));
+    }
+
+    static Map<String, Object> getStats() {
+        long flushes = FLUSHES.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("running", running);
+        stats.put("queueDepth", QUEUE.size());
+        stats.put("queueCapacity", QUEUE_CAPACITY);
+        stats.put("enqueued", ENQUEUED.get());
+        stats.put("written", WRITTEN.get());
+        stats.put("writtenByCaller", WRITTEN_BY_CALLER.get());
+        stats.put("dropped", DROPPED.get());
+        stats.put("flushes", flushes);
+        stats.put("averageFlushMillis", flushes == 0 ? 0 : FLUSH_MILLIS.get() / flushes);
+        stats.put("maxFlushMillis", MAX_FLUSH_MILLIS.get());
+        return stats;
+    }
+
+    private static void drain() {
+        List<AuditLogEntry> batch = new ArrayList<>(FLUSH_SIZE);
+        while (running || !QUEUE.isEmpty()) {
+            try {
+                AuditLogEntry first = QUEUE.poll(FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Give the group until the interval is up to fill
+                long deadline = System.currentTimeMillis() + FLUSH_INTERVAL_MILLIS;
+                while (batch.size() < FLUSH_SIZE) {
+                    QUEUE.drainTo(batch, FLUSH_SIZE - batch.size());
+                    long wait = deadline - System.currentTimeMillis();
+                    if (batch.size() >= FLUSH_SIZE || wait <= 0) {
+                        break;
+                    }
+                    AuditLogEntry next = QUEUE.poll(wait, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // stop() interrupts to cut the wait short; write what is queued without waiting for more
+                QUEUE.drainTo(batch, FLUSH_SIZE - batch.size());
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static void flush(List<AuditLogEntry> entries) {
+        long start = System.currentTimeMillis();
+        String sql = entries.size() == FLUSH_SIZE ? FULL_BATCH_INSERT : buildInsert(entries.size());
+        try (Connection conn = DbConnect.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (AuditLogEntry entry : entries) {
+                ps.setInt(index++, entry.getUserId());
+                ps.setString(index++, entry.getAction());
+                ps.setString(index++, entry.getTarget());
+                ps.setInt(index++, entry.getTargetId());
+                ps.setTimestamp(index++, entry.getTimestamp());
+            }
+            ps.executeUpdate();
+            WRITTEN.addAndGet(entries.size());
+        } catch (SQLException e) {
+            DROPPED.addAndGet(entries.size());
+            LOGGER.error("Failed to write {} audit log entries", entries.size(), e);
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        FLUSHES.incrementAndGet();
+        FLUSH_MILLIS.addAndGet(elapsed);
+        MAX_FLUSH_MILLIS.accumulateAndGet(elapsed, Math::max);
+    }
+
+    private static final String INSERT_TO_AUDIT_LOG =
+            "INSERT INTO auditlogs (UserId, Action, Target, TargetId, CreatedAt) " +
+            "VALUES %s";
+    private static String buildInsert(int rows) {
+        return String.format(INSERT_TO_AUDIT_LOG, String.join(",", Collections.nCopies(rows, "(?,?,?,?,?)")));
+    }
+
+    private static int getIntProperty(String key, int defaultValue) {
+        int value = PROPERTIES.getIntProperty(key);
+        return value <= 0 ? defaultValue : value;
+    }
+}
@@ -1,15 +1,25 @@
 package com.discovery.channel.audit;
 
 import com.discovery.channel.database.DbConnect;
+import com.discovery.channel.database.UnitOfWork;
+import com.discovery.channel.database.UserController;
+import com.discovery.channel.model.CursorResults;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class AuditLogger {
     private static final Logger LOGGER = LoggerFactory.getLogger(AuditLogger.class);
@@ -39,40 +49,150 @@ public class AuditLogger {
         }
     }
 
-    private static final String INSERT_TO_AUDIT_LOG =
-            "INSERT INTO auditlogs (UserId, Action, Target, TargetId) " +
-            "VALUES (?,?,?,?)";
+    /**
+     * Record an action. The entry is written in the background once the current transaction commits,
+     * and is not written at all if it rolls back.
+     *
+     * @param userId
+     * @param target
+     * @param targetId
+     * @param action
+     */
     public static void log(int userId, Target target, int targetId, ACTION action){
         LOGGER.info("Auditing action user Id {} target {} targetId {} action {}", userId, target.getName(), targetId, action.getName());
-        try (Connection conn = DbConnect.getConnection();
-             PreparedStatement ps = conn.prepareStatement(INSERT_TO_AUDIT_LOG)){
-            ps.setInt(1, userId);
-            ps.setString(2, action.getName());
-            ps.setString(3, target.getName());
-            ps.setInt(4, targetId);
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            LOGGER.error("Failed to audit action", e);
+        // Stamp the entry now; it may reach the database a little later
+        AuditLogEntry entry = new AuditLogEntry(0, userId, action.getName(), target.getName(), targetId,
+                new Timestamp(System.currentTimeMillis()));
+        UnitOfWork.afterCommit(() -> AuditLogWriter.write(entry));
+    }
+
+    public static void start() {
+        AuditLogWriter.start();
+    }
+
+    /**
+     * Write out queued entries and stop the background writer. Later entries are written synchronously.
+     */
+    public static void stop() {
+        AuditLogWriter.stop();
+    }
+
+    public static Map<String, Object> getStats() {
+        return AuditLogWriter.getStats();
+    }
+
+    /**
+     * Write one page of audit log entries as {"results": [...], "nextCursor": "..."}. Entries go to the
+     * generator as they are read instead of being collected first, and the driver streams the rows rather than
+     * buffering the page. nextCursor is left out on the last page.
+     *
+     * @param query
+     * @param generator
+     * @throws SQLException
+     * @throws IOException
+     */
+    public static void writeLogs(AuditLogQuery query, JsonGenerator generator) throws SQLException, IOException {
+        try (Connection conn = DbConnect.getStreamingConnection();
+             PreparedStatement ps = DbConnect.prepareStreaming(conn, query.toSql())) {
+            query.bind(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("results");
+                AuditLogEntry last = null;
+                boolean hasMore = false;
+                int count = 0;
+                while (rs.next()) {
+                    // The query fetches one entry past the page
+                    if (count == query.getLimit()) {
+                        hasMore = true;
+                        break;
+                    }
+                    last = parseResultSet(rs);
+                    generator.writeObject(last);
+                    count++;
+                }
+                generator.writeEndArray();
+                if (hasMore) {
+                    generator.writeStringField("nextCursor", AuditLogCursor.after(last).encode());
+                }
+                generator.writeEndObject();
+            }
         }
+        generator.flush();
     }
 
-    private static final String GET_AUDIT_LOGS = "SELECT * " +
-            "FROM auditlogs " +
-            "ORDER BY CreatedAt ASC";
-    public static List<AuditLogEntry> getLogs() throws SQLException {
-        List<AuditLogEntry> logs = new ArrayList<>();
+    /**
+     * Get the changes to one record or container, newest first, with the names of the users who made them
+     *
+     * @param target
+     * @param targetId
+     * @param cursor nextCursor of the previous page, or empty for the first page
+     * @param limit maximum number of entries in the page
+     * @return a page of changes
+     * @throws SQLException
+     */
+    public static CursorResults<HistoryEntry> getHistory(Target target, int targetId, String cursor, int limit)
+            throws SQLException {
+        AuditLogQuery query = historyQuery(target, targetId, cursor, limit);
+        List<AuditLogEntry> entries = new ArrayList<>(limit + 1);
         try (Connection conn = DbConnect.getConnection();
-        PreparedStatement ps = conn.prepareStatement(GET_AUDIT_LOGS);
-             ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) {
-                logs.add(new AuditLogEntry(rs.getInt("Id"),
-                        rs.getInt("UserId"),
-                        rs.getString("Action"),
-                        rs.getString("Target"),
-                        rs.getInt("TargetId"),
-                        rs.getTimestamp("CreatedAt")));
+             PreparedStatement ps = conn.prepareStatement(query.toSql())) {
+            query.bind(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    entries.add(parseResultSet(rs));
+                }
             }
         }
-        return logs;
+
+        return toHistory(entries, limit, UserController::getUserNamesByIds);
+    }
+
+    @FunctionalInterface
+    interface UserNames {
+        Map<Integer, String> get(Collection<Integer> userIds) throws SQLException;
+    }
+
+    static AuditLogQuery historyQuery(Target target, int targetId, String cursor, int limit) {
+        // Served by the (Target, TargetId, CreatedAt) index
+        return new AuditLogQuery(null, target.getName(), targetId, null, null, null, cursor, true, limit);
+    }
+
+    /**
+     * Turn the entries read for a page, which may hold one entry past it, into the page. The names of all
+     * the users in the page are looked up at once.
+     */
+    static CursorResults<HistoryEntry> toHistory(List<AuditLogEntry> entries, int limit, UserNames names)
+            throws SQLException {
+        String nextCursor = null;
+        if (entries.size() > limit) {
+            entries = entries.subList(0, limit);
+            nextCursor = AuditLogCursor.after(entries.get(limit - 1)).encode();
+        }
+
+        Set<Integer> userIds = new HashSet<>();
+        for (AuditLogEntry entry : entries) {
+            userIds.add(entry.getUserId());
+        }
+        Map<Integer, String> userNames = names.get(userIds);
+
+        List<HistoryEntry> history = new ArrayList<>(entries.size());
+        for (AuditLogEntry entry : entries) {
+            history.add(new HistoryEntry(entry.getId(),
+                    entry.getUserId(),
+                    userNames.get(entry.getUserId()),
+                    entry.getAction(),
+                    entry.getTimestamp()));
+        }
+        return new CursorResults<>(history, nextCursor);
+    }
+
+    private static AuditLogEntry parseResultSet(ResultSet rs) throws SQLException {
+        return new AuditLogEntry(rs.getInt("Id"),
+                rs.getInt("UserId"),
+                rs.getString("Action"),
+                rs.getString("Target"),
+                rs.getInt("TargetId"),
+                rs.getTimestamp("CreatedAt"));
     }
 }
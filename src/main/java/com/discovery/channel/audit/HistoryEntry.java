@@ -0,0 +1,19 @@
+package com.discovery.channel.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.sql.Timestamp;
+
+/**
+ * One change to a record or container, with the name of the user who made it
+ */
+@Getter
+@AllArgsConstructor
+public class HistoryEntry {
+    private int id;
+    private int userId;
+    private String userName;
+    private String action;
+    private Timestamp timestamp;
+}
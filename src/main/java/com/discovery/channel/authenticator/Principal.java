@@ -0,0 +1,65 @@
+package com.discovery.channel.authenticator;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Resolved authorization facts for one user: role, assigned locations and the restricted locations
+ * at the time it was built. Immutable, shared across requests by PrincipalCache.
+ */
+public class Principal {
+    @Getter
+    private final int userId;
+    @Getter
+    private final Role role;
+    private final BitSet locationIds;
+    private final Set<Integer> restrictedLocationIds;
+
+    Principal(int userId, Role role, BitSet locationIds, Set<Integer> restrictedLocationIds) {
+        this.userId = userId;
+        this.role = role;
+        this.locationIds = locationIds;
+        this.restrictedLocationIds = restrictedLocationIds;
+    }
+
+    public boolean hasRole(Role expectedRole) {
+        return role != null && role == expectedRole;
+    }
+
+    /**
+     * Return true iff the user belongs to locationId
+     */
+    public boolean isAssignedTo(int locationId) {
+        return locationId >= 0 && locationIds.get(locationId);
+    }
+
+    /**
+     * @return ids of the restricted locations this user is not assigned to, in ascending order
+     */
+    public List<Integer> getHiddenLocationIds() {
+        List<Integer> hidden = new ArrayList<>();
+        for (int locationId : restrictedLocationIds) {
+            if (!isAssignedTo(locationId)) {
+                hidden.add(locationId);
+            }
+        }
+        Collections.sort(hidden);
+        return hidden;
+    }
+
+    /**
+     * Return true iff the user can see documents at locationId
+     */
+    public boolean canView(int locationId) {
+        // Containers may have null location id
+        if (locationId == 0) {
+            return true;
+        }
+        return !restrictedLocationIds.contains(locationId) || isAssignedTo(locationId);
+    }
+}
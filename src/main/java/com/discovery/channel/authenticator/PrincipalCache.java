@@ -0,0 +1,122 @@
+package com.discovery.channel.authenticator;
+
+import com.discovery.channel.database.DbConnect;
+import com.discovery.channel.database.LocationController;
+import com.discovery.channel.properties.DefaultProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user cache of resolved principals. Entries expire after CACHE.PRINCIPAL.TTL_SECONDS and
+ * can be dropped explicitly when roles or location assignments change.
+ */
+public class PrincipalCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrincipalCache.class);
+    private static final DefaultProperties PROPERTIES = DefaultProperties.getInstance();
+
+    private static final long DEFAULT_TTL_SECONDS = 60;
+    private static final long TTL_MILLIS = getTtlSeconds() * 1000;
+
+    private static final Map<Integer, Entry> PRINCIPALS = new ConcurrentHashMap<>();
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+
+    private static class Entry {
+        private final Principal principal;
+        private final long loadedAt;
+
+        private Entry(Principal principal, long loadedAt) {
+            this.principal = principal;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    // Hide constructor
+    private PrincipalCache() {
+    }
+
+    /**
+     * Get the principal of a user, loading it if it is not cached or has expired
+     *
+     * @param userId
+     * @return
+     * @throws SQLException
+     */
+    public static Principal get(int userId) throws SQLException {
+        Entry entry = PRINCIPALS.get(userId);
+        long now = System.currentTimeMillis();
+        if (entry != null && now - entry.loadedAt <= TTL_MILLIS) {
+            HITS.incrementAndGet();
+            return entry.principal;
+        }
+        MISSES.incrementAndGet();
+        Principal principal = load(userId);
+        PRINCIPALS.put(userId, new Entry(principal, now));
+        return principal;
+    }
+
+    public static void invalidate(int userId) {
+        PRINCIPALS.remove(userId);
+    }
+
+    public static void invalidateAll() {
+        LOGGER.info("Invalidating {} cached principals", PRINCIPALS.size());
+        PRINCIPALS.clear();
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", HITS.get());
+        stats.put("misses", MISSES.get());
+        stats.put("size", PRINCIPALS.size());
+        return stats;
+    }
+
+    /**
+     * Load role and location assignments of a user
+     */
+    private static final String GET_USER_ROLE_BY_USER_ID ="SELECT RoleId " +
+            "FROM userroles " +
+            "WHERE UserId=?";
+    private static final String GET_USER_LOCATION_IDS = "SELECT LocationId " +
+            "FROM userlocations " +
+            "WHERE UserId=?";
+    private static Principal load(int userId) throws SQLException {
+        Role role = null;
+        BitSet locationIds = new BitSet();
+        try (Connection conn = DbConnect.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(GET_USER_ROLE_BY_USER_ID)) {
+                ps.setInt(1, userId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        role = Role.fromRoleId(rs.getInt("RoleId"));
+                    }
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(GET_USER_LOCATION_IDS)) {
+                ps.setInt(1, userId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        locationIds.set(rs.getInt("LocationId"));
+                    }
+                }
+            }
+        }
+        return new Principal(userId, role, locationIds, LocationController.getRestrictedLocationIds());
+    }
+
+    private static long getTtlSeconds() {
+        int ttl = PROPERTIES.getIntProperty("CACHE.PRINCIPAL.TTL_SECONDS");
+        return ttl < 0 ? DEFAULT_TTL_SECONDS : ttl;
+    }
+}
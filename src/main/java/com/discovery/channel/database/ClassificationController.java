@@ -11,25 +11,8 @@ import java.util.List;
 
 public class ClassificationController {
 
-    private static final String FIND_ROOT_CLASSIFICATIONS =
-            "SELECT Id, Name, Keyword " +
-            "FROM classifications " +
-            "WHERE KeyWord = ? " +
-            "ORDER BY Name ASC";
     public static List<Classification> getRootClassifications() throws SQLException {
-        List<Classification> classifications = new ArrayList<>();
-        try(Connection conn = DbConnect.getConnection();
-            PreparedStatement ps = conn.prepareStatement(FIND_ROOT_CLASSIFICATIONS)) {
-            ps.setString(1, Classification.CLASSIFICATION_TYPE.T.name());
-            try(ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    classifications.add(new Classification(rs.getInt("Id"),
-                            rs.getString("Name"),
-                            Classification.CLASSIFICATION_TYPE.fromName(rs.getString("KeyWord"))));
-                }
-            }
-        }
-        return classifications;
+        return new ArrayList<>(getIndex().getRoots());
     }
 
     /**
@@ -44,11 +27,16 @@ public class ClassificationController {
             "FROM classifications " +
             "WHERE Id = ?";
     public static Classification findClassificationById(int id) throws SQLException {
+        Classification classification = getIndex().get(id);
+        if (classification != null) {
+            return classification;
+        }
         try(Connection conn = DbConnect.getConnection();
             PreparedStatement ps = conn.prepareStatement(FIND_CLASSIFICATION_BY_ID)) {
             ps.setInt(1, id);
             try(ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
+                    ReferenceDataCache.invalidate();
                     return new Classification(rs.getInt("Id"),
                             rs.getString("Name"),
                             Classification.CLASSIFICATION_TYPE.fromName(rs.getString("KeyWord")));
@@ -59,53 +47,91 @@ public class ClassificationController {
     }
 
     /**
-     * Find valid children classification Ids
-     * @param clasId
+     * Return true iff childId is a valid child classification of parentId
+     *
+     * @param parentId
+     * @param childId
      * @return
+     * @throws SQLException
      */
-    private static final String FIND_CHILDREN_CLASS_ID =
-            "SELECT ChildId " +
+    private static final String FIND_CLASS_HIERARCHY =
+            "SELECT 1 " +
             "FROM classhierarchy " +
-            "WHERE ParentId = ? ";
-    public static List<Integer> findChildrenClassificationIds(int classId) throws SQLException {
-        List<Integer> childIds = new ArrayList<>();
+            "WHERE ParentId = ? AND ChildId = ?";
+    public static boolean isValidChildClassification(int parentId, int childId) throws SQLException {
+        if (getIndex().isChild(parentId, childId)) {
+            return true;
+        }
+        // Only a rejection pays for a query, in case the hierarchy changed since the index was loaded
         try(Connection conn = DbConnect.getConnection();
-            PreparedStatement ps = conn.prepareStatement(FIND_CHILDREN_CLASS_ID)) {
-            ps.setInt(1, classId);
+            PreparedStatement ps = conn.prepareStatement(FIND_CLASS_HIERARCHY)) {
+            ps.setInt(1, parentId);
+            ps.setInt(2, childId);
             try(ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    childIds.add(rs.getInt("ChildId"));
+                if (rs.next()) {
+                    ReferenceDataCache.invalidate();
+                    return true;
                 }
             }
         }
-        return childIds;
+        return false;
     }
 
     /**
-     * Find valid children classification Ids
-     * @param clasId
+     * Find valid children classifications, ordered by name
+     * @param parentId
      * @return
      */
-    private static final String FIND_CHILDREN_CLASS =
-            "SELECT c.Id AS Id, Name, KeyWord " +
-            "FROM classhierarchy ch " +
-            "INNER JOIN  classifications c " +
-            "ON ch.childId = c.Id " +
-            "WHERE ch.ParentId = ? " +
-            "ORDER BY Name ASC";
     public static List<Classification> findChildrenClassifications(int parentId) throws SQLException {
-        List<Classification> children = new ArrayList<>();
-        try(Connection conn = DbConnect.getConnection();
-            PreparedStatement ps = conn.prepareStatement(FIND_CHILDREN_CLASS)) {
-            ps.setInt(1, parentId);
-            try(ResultSet rs = ps.executeQuery()) {
+        return new ArrayList<>(getIndex().getChildren(parentId));
+    }
+
+    /**
+     * Build classification string "<class1>/<class2>/<class3>..." for the given classification ids
+     *
+     * @param classIds
+     * @return
+     * @throws SQLException
+     */
+    public static String buildClassificationPath(List<Integer> classIds) throws SQLException {
+        return getIndex().buildPath(classIds);
+    }
+
+    private static ClassificationIndex getIndex() throws SQLException {
+        return ReferenceDataCache.get().getClassifications();
+    }
+
+    /**
+     * Load the classification hierarchy for the reference data cache
+     *
+     * @return
+     * @throws SQLException
+     */
+    private static final String GET_ALL_CLASSIFICATIONS =
+            "SELECT Id, Name, KeyWord " +
+            "FROM classifications";
+    private static final String GET_CLASS_HIERARCHY =
+            "SELECT ParentId, ChildId " +
+            "FROM classhierarchy";
+    static ClassificationIndex loadClassificationIndex() throws SQLException {
+        List<Classification> classifications = new ArrayList<>();
+        List<int[]> edges = new ArrayList<>();
+        try(Connection conn = DbConnect.getConnection()) {
+            try(PreparedStatement ps = conn.prepareStatement(GET_ALL_CLASSIFICATIONS);
+                ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    children.add(new Classification(rs.getInt("Id"),
+                    classifications.add(new Classification(rs.getInt("Id"),
                             rs.getString("Name"),
                             Classification.CLASSIFICATION_TYPE.fromName(rs.getString("KeyWord"))));
                 }
             }
+            try(PreparedStatement ps = conn.prepareStatement(GET_CLASS_HIERARCHY);
+                ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    edges.add(new int[] {rs.getInt("ParentId"), rs.getInt("ChildId")});
+                }
+            }
         }
-        return children;
+        return new ClassificationIndex(classifications, edges);
     }
 }
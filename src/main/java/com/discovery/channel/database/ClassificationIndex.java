@@ -0,0 +1,110 @@
+package com.discovery.channel.database;
+
+import com.discovery.channel.model.Classification;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable in-memory graph of the classifications and classhierarchy tables.
+ *
+ * Children of a parent are kept as a sorted int[] so that checking an edge is a binary search.
+ * Children and roots are also kept sorted by name, in the order the endpoints return them.
+ */
+class ClassificationIndex {
+    private static final int[] NO_CHILDREN = new int[0];
+    // Like ORDER BY Name, Id under the table's case insensitive collation, which sorts NULL first
+    private static final Comparator<Classification> BY_NAME = Comparator
+            .comparing(Classification::getName, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+            .thenComparingInt(Classification::getId);
+
+    private final Map<Integer, Classification> classifications;
+    private final Map<Integer, int[]> childIds;
+    private final Map<Integer, List<Classification>> childrenByName;
+    private final List<Classification> roots;
+
+    /**
+     * @param classifications all rows of the classifications table
+     * @param edges all rows of the classhierarchy table as {ParentId, ChildId}
+     */
+    ClassificationIndex(List<Classification> classifications, List<int[]> edges) {
+        Map<Integer, Classification> byId = new HashMap<>();
+        List<Classification> rootList = new ArrayList<>();
+        for (Classification classification : classifications) {
+            byId.put(classification.getId(), classification);
+            if (classification.getKeyword() == Classification.CLASSIFICATION_TYPE.T) {
+                rootList.add(classification);
+            }
+        }
+        rootList.sort(BY_NAME);
+
+        Map<Integer, List<Integer>> grouped = new HashMap<>();
+        for (int[] edge : edges) {
+            grouped.computeIfAbsent(edge[0], k -> new ArrayList<>()).add(edge[1]);
+        }
+
+        Map<Integer, int[]> adjacency = new HashMap<>();
+        Map<Integer, List<Classification>> byName = new HashMap<>();
+        for (Map.Entry<Integer, List<Integer>> entry : grouped.entrySet()) {
+            int[] children = entry.getValue().stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+            adjacency.put(entry.getKey(), children);
+            List<Classification> named = new ArrayList<>(children.length);
+            for (int childId : children) {
+                Classification child = byId.get(childId);
+                // Hierarchy rows may point at deleted classifications; the join used to drop them
+                if (child != null) {
+                    named.add(child);
+                }
+            }
+            named.sort(BY_NAME);
+            byName.put(entry.getKey(), Collections.unmodifiableList(named));
+        }
+
+        this.classifications = byId;
+        this.childIds = adjacency;
+        this.childrenByName = byName;
+        this.roots = Collections.unmodifiableList(rootList);
+    }
+
+    Classification get(int id) {
+        return classifications.get(id);
+    }
+
+    int size() {
+        return classifications.size();
+    }
+
+    List<Classification> getRoots() {
+        return roots;
+    }
+
+    List<Classification> getChildren(int parentId) {
+        return childrenByName.getOrDefault(parentId, Collections.emptyList());
+    }
+
+    boolean isChild(int parentId, int childId) {
+        return Arrays.binarySearch(childIds.getOrDefault(parentId, NO_CHILDREN), childId) >= 0;
+    }
+
+    /**
+     * Build the "a/b/c" path of the given classification ids; ids not in the index are skipped
+     *
+     * @param classIds
+     * @return
+     */
+    String buildPath(List<Integer> classIds) {
+        List<Classification> path = new ArrayList<>(classIds.size());
+        for (Integer id : classIds) {
+            Classification classification = classifications.get(id);
+            if (classification != null) {
+                path.add(classification);
+            }
+        }
+        return Classification.buildClassificationString(path);
+    }
+}
@@ -1,16 +1,22 @@
 package com.discovery.channel.database;
 
 import com.discovery.channel.audit.AuditLogger;
+import com.discovery.channel.audit.HistoryEntry;
 import com.discovery.channel.authenticator.Authenticator;
+import com.discovery.channel.authenticator.Principal;
 import com.discovery.channel.authenticator.Role;
 import com.discovery.channel.exception.AuthenticationException;
 import com.discovery.channel.exception.IllegalArgumentException;
 import com.discovery.channel.exception.NoResultsFoundException;
 import com.discovery.channel.exception.ValidationException;
 import com.discovery.channel.model.Container;
+import com.discovery.channel.model.CursorResults;
+import com.discovery.channel.model.NoteTable;
+import com.discovery.channel.model.Projection;
 import com.discovery.channel.model.Record;
 import com.discovery.channel.model.RecordState;
 import com.discovery.channel.model.RetentionSchedule;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.mysql.jdbc.Statement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +24,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
@@ -29,23 +36,61 @@ public class ContainerController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ContainerController.class);
 
-    private static Container parseResultSet(ResultSet resultSet) throws SQLException {
+    /**
+     * Columns of the containers table behind each container field. Id and LocationId are always selected, since
+     * access to a container is decided by its location.
+     */
+    private static final Map<String, String> COLUMNS_BY_FIELD = new HashMap<>();
+    static {
+        COLUMNS_BY_FIELD.put("containerNumber", "Number");
+        COLUMNS_BY_FIELD.put("title", "Title");
+        COLUMNS_BY_FIELD.put("consignmentCode", "ConsignmentCode");
+        COLUMNS_BY_FIELD.put("createdAt", "CreatedAt");
+        COLUMNS_BY_FIELD.put("updatedAt", "UpdatedAt");
+        COLUMNS_BY_FIELD.put("destructionDate", "DestructionDate");
+        COLUMNS_BY_FIELD.put("stateId", "StateId");
+        COLUMNS_BY_FIELD.put("state", "StateId");
+        COLUMNS_BY_FIELD.put("scheduleId", "ScheduleId");
+        COLUMNS_BY_FIELD.put("scheduleName", "ScheduleId");
+        COLUMNS_BY_FIELD.put("scheduleYear", "ScheduleId");
+        COLUMNS_BY_FIELD.put("typeId", "TypeId");
+        COLUMNS_BY_FIELD.put("type", "TypeId");
+    }
+    private static final Set<String> ALL_COLUMNS = new LinkedHashSet<>(Arrays.asList("Id", "Number", "Title",
+            "ConsignmentCode", "CreatedAt", "UpdatedAt", "StateId", "LocationId", "ScheduleId", "TypeId",
+            "DestructionDate"));
+
+    private static Set<String> selectColumns(Projection projection, String... required) {
+        if (projection == Projection.ALL) {
+            return ALL_COLUMNS;
+        }
+        Set<String> columns = new LinkedHashSet<>(Arrays.asList("Id", "LocationId"));
+        columns.addAll(Arrays.asList(required));
+        COLUMNS_BY_FIELD.forEach((field, column) -> {
+            if (projection.includes(field)) {
+                columns.add(column);
+            }
+        });
+        return columns;
+    }
+
+    /**
+     * Parse result set from container table, reading only the columns that were selected
+     */
+    private static Container parseResultSet(ResultSet resultSet, Set<String> columns) throws SQLException {
         int id = resultSet.getInt("Id");
-        String number = resultSet.getString("Number");
-        String title = resultSet.getString("Title");
-        String consignmentCode = resultSet.getString("ConsignmentCode");
-        Date createdAt = resultSet.getDate("CreatedAt");
-        Date updatedAt = resultSet.getDate("UpdatedAt");
-        int stateId = resultSet.getInt("stateId");
+        String number = columns.contains("Number") ? resultSet.getString("Number") : null;
+        String title = columns.contains("Title") ? resultSet.getString("Title") : null;
+        String consignmentCode = columns.contains("ConsignmentCode") ? resultSet.getString("ConsignmentCode") : null;
+        Date createdAt = columns.contains("CreatedAt") ? resultSet.getDate("CreatedAt") : null;
+        Date updatedAt = columns.contains("UpdatedAt") ? resultSet.getDate("UpdatedAt") : null;
+        int stateId = columns.contains("StateId") ? resultSet.getInt("stateId") : 0;
         int locationId = resultSet.getInt("locationId");
-        int scheduleId = resultSet.getInt("scheduleId");
-        int typeId = resultSet.getInt("typeId");
-        Date destructionDate = resultSet.getDate("DestructionDate");
+        int scheduleId = columns.contains("ScheduleId") ? resultSet.getInt("scheduleId") : 0;
+        int typeId = columns.contains("TypeId") ? resultSet.getInt("typeId") : 0;
+        Date destructionDate = columns.contains("DestructionDate") ? resultSet.getDate("DestructionDate") : null;
 
-        List<Integer> childRecordIds = getRecordIdsInContainer(id);
-        String notes = NoteTableController.getContainerNotes(id);
-
-        Container c = new Container(id,
+        return new Container(id,
                 number,
                 title,
                 consignmentCode,
@@ -56,26 +101,80 @@ public class ContainerController {
                 scheduleId,
                 typeId,
                 destructionDate,
-                childRecordIds,
-                notes);
-        loadContainerDetail(c);
-        return c;
+                new ArrayList<>(),
+                null);
     }
 
-    private static void loadContainerDetail(Container container) throws SQLException {
-        container.setNotes(NoteTableController.getContainerNotes(container.getContainerId()));
-        container.setLocationName(LocationController.getLocationNameByLocationId(container.getLocationId()));
-        container.setState(StateController.getStateName(container.getStateId()));
-        try {
-            container.setType(RecordTypeController.getTypeName(container.getTypeId()));
-            RetentionSchedule schedule = RetentionScheduleController.getRetentionSchedule(container.getScheduleId());
-            container.setScheduleName(schedule.getName());
-            container.setScheduleYear(schedule.getYears());
-        } catch (Exception e) {
+    /**
+     * Load container details, including child record ids, location, state, type and retention schedule,
+     * for a list of containers using a fixed number of queries. Notes are only loaded when asked for;
+     * otherwise just their length is. Details that the projection leaves out are not loaded.
+     *
+     * @param containers
+     * @param projection
+     * @param withNotes
+     * @throws SQLException
+     */
+    private static final String GET_RECORD_IDS_IN_CONTAINERS =
+            "SELECT ContainerId, Id FROM records " +
+            "WHERE ContainerId IN (%s)";
+    private static void loadContainerDetails(List<Container> containers, Projection projection, boolean withNotes)
+            throws SQLException {
+        if (containers.isEmpty()) {
+            return;
+        }
+        boolean withChildRecordIds = projection.includes("childRecordIds");
+        boolean withNotesLengths = !withNotes && projection.includesAny("hasNotes", "notesLength");
+
+        Map<Integer, List<Container>> containersById = new LinkedHashMap<>();
+        for (Container container : containers) {
+            containersById.computeIfAbsent(container.getContainerId(), k -> new ArrayList<>()).add(container);
+            container.setChildRecordIds(new ArrayList<>());
+            setReferenceNames(container, projection);
+        }
+        Set<Integer> ids = containersById.keySet();
+
+        // Load child record ids
+        if (withChildRecordIds) {
+            MultiGet.forEachRow(GET_RECORD_IDS_IN_CONTAINERS, ids, rs -> {
+                for (Container container : containersById.get(rs.getInt("ContainerId"))) {
+                    container.getChildRecordIds().add(rs.getInt("Id"));
+                }
+            });
+        }
 
+        // Load notes, or only their lengths for lists
+        Map<Integer, String> notes = withNotes ? NoteTableController.getContainerNotes(ids) : Collections.emptyMap();
+        Map<Integer, Integer> notesLengths = withNotesLengths ?
+                NoteTableController.getContainerNoteLengths(ids) : new HashMap<>();
+        notes.forEach((id, text) -> notesLengths.put(id, text.codePointCount(0, text.length())));
+        for (Container container : containers) {
+            int notesLength = notesLengths.getOrDefault(container.getContainerId(), 0);
+            container.setNotes(notes.get(container.getContainerId()));
+            container.setHasNotes(notesLength > 0);
+            container.setNotesLength(notesLength);
         }
     }
 
+    /**
+     * Set location, state, type and retention schedule from the reference data cache
+     */
+    private static void setReferenceNames(Container container, Projection projection) throws SQLException {
+        if (projection.includes("locationName")) {
+            container.setLocationName(LocationController.getLocationNameByLocationId(container.getLocationId()));
+        }
+        if (projection.includes("state")) {
+            container.setState(StateController.getStateName(container.getStateId()));
+        }
+        if (projection.includes("type")) {
+            container.setType(RecordTypeController.getTypeName(container.getTypeId()));
+        }
+        if (projection.includesAny("scheduleName", "scheduleYear")) {
+            RetentionSchedule schedule = RetentionScheduleController.findRetentionSchedule(container.getScheduleId());
+            container.setScheduleName(schedule == null ? null : schedule.getName());
+            container.setScheduleYear(schedule == null ? 0 : schedule.getYears());
+        }
+    }
 
     private static final String GET_RECORD_IDS_IN_CONTAINER =
             "SELECT Id FROM records " +
@@ -95,55 +194,122 @@ public class ContainerController {
     }
 
     private static final String GET_CONTAINER_BY_ID =
-            "SELECT * FROM containers " +
+            "SELECT %s FROM containers " +
             "WHERE Id = ?";
     public static final Container getContainerById(int id, int userId) throws SQLException{
+        return getContainerById(id, userId, Projection.ALL);
+    }
+
+    /**
+     * Get a container with only the fields asked for. A single container carries its notes unless fields leaves
+     * them out.
+     */
+    public static final Container getContainerById(int id, int userId, Projection projection) throws SQLException{
+        Set<String> columns = selectColumns(projection);
         try (Connection connection = DbConnect.getConnection();
-             PreparedStatement ps = connection.prepareStatement(GET_CONTAINER_BY_ID)) {
+             PreparedStatement ps = connection.prepareStatement(
+                     String.format(GET_CONTAINER_BY_ID, String.join(", ", columns)))) {
             ps.setInt(1, id);
             try (ResultSet rs = ps.executeQuery()){
                 verifyResultNotEmpty(rs);
                 rs.next();
-                Container container =  parseResultSet(rs);
+                Container container =  parseResultSet(rs, columns);
+                loadContainerDetails(Collections.singletonList(container), projection,
+                        projection.includes(Projection.NOTES));
                 if (!Authenticator.canUserViewLocation(userId, container.getLocationId())) {
                     throw new AuthenticationException(String.format("You do not have permission to view containers at %s. ",
-                            container.getLocationName()));
+                            LocationController.getLocationNameByLocationId(container.getLocationId())));
                 }
                 return container;
             }
         }
     }
 
+    /**
+     * Get the changes made to a container, newest first
+     *
+     * @param id
+     * @param userId
+     * @param cursor nextCursor of the previous page, or empty for the first page
+     * @param limit
+     * @return a page of changes
+     * @throws SQLException
+     */
+    public static CursorResults<HistoryEntry> getContainerHistory(int id, int userId, String cursor, int limit)
+            throws SQLException {
+        // Checks that the container exists and that the user may see it
+        getContainerById(id, userId, Projection.ID_ONLY);
+        return AuditLogger.getHistory(AuditLogger.Target.CONTAINER, id, cursor, limit);
+    }
+
     /**
      * Get containers by ids
      *
      * @param ids
-     * @return List of containers
+     * @return List of containers, in the order of ids
      */
+    private static final String GET_CONTAINERS_BY_IDS = "SELECT %s FROM containers WHERE Id IN (%%s)";
     public static List<Container> getContainersByIds(List<Integer> ids) throws SQLException {
+        return getContainersByIds(ids, Projection.ALL);
+    }
+
+    /**
+     * Get containers by ids with only the fields asked for. Notes are left out unless expanded.
+     */
+    public static List<Container> getContainersByIds(List<Integer> ids, Projection projection) throws SQLException {
         List<Container> containers = new ArrayList<>();
 
         if (ids == null || ids.isEmpty()) {
             return containers;
         }
 
-        String str = "SELECT * FROM containers WHERE Id IN (";
-
-        String query = completeIdsInQuery(ids, str);
-
-        try (Connection connection = DbConnect.getConnection();
-             PreparedStatement ps = connection.prepareStatement(query)) {
-            try (ResultSet resultSet = ps.executeQuery()) {
-                while (resultSet.next()) {
-                    Container container = parseResultSet(resultSet);
-                    loadContainerDetail(container);
-                    containers.add(container);
-                }
-            }
-        }
+        Set<String> columns = selectColumns(projection);
+        containers = MultiGet.getByIds(String.format(GET_CONTAINERS_BY_IDS, String.join(", ", columns)), "Id", ids,
+                rs -> parseResultSet(rs, columns));
+        loadContainerDetails(containers, projection, projection.expands(Projection.NOTES));
         return containers;
     }
 
+    /**
+     * Write containers as a JSON array while they are read, without collecting them first. The driver streams
+     * the rows, and each row carries its child record ids and notes length, so memory use stays the same
+     * however many containers there are. Notes are not included.
+     *
+     * @param ids
+     * @param generator
+     * @throws SQLException
+     * @throws IOException
+     */
+    private static final String STREAM_CONTAINERS_BY_IDS =
+            "SELECT c.Id, c.Number, c.Title, c.ConsignmentCode, c.CreatedAt, c.UpdatedAt, c.StateId, c.LocationId, " +
+            "c.ScheduleId, c.TypeId, c.DestructionDate, " +
+            "(SELECT GROUP_CONCAT(r.Id) FROM records r WHERE r.ContainerId = c.Id) AS ChildRecordIds, " +
+            "(SELECT SUM(COALESCE(n.Length, CHAR_LENGTH(n.Text))) FROM notes n " +
+                "WHERE n.TableId = ? AND n.RowId = c.Id) AS NotesLength " +
+            "FROM containers c " +
+            "WHERE c.Id IN (%1$s) " +
+            "ORDER BY FIELD(c.Id, %1$s)";
+    public static void writeContainersByIds(List<Integer> ids, JsonGenerator generator)
+            throws SQLException, IOException {
+        generator.writeStartArray();
+        MultiGet.streamRows(STREAM_CONTAINERS_BY_IDS,
+                ps -> {
+                    ps.setInt(1, NoteTable.CONTAINERS.id);
+                    return 2;
+                },
+                ids,
+                rs -> {
+                    Container container = parseResultSet(rs, ALL_COLUMNS);
+                    setReferenceNames(container, Projection.ALL);
+                    container.setChildRecordIds(MultiGet.splitIds(rs.getString("ChildRecordIds")));
+                    container.setHasNotes(rs.getInt("NotesLength") > 0);
+                    container.setNotesLength(rs.getInt("NotesLength"));
+                    generator.writeObject(container);
+                });
+        generator.writeEndArray();
+        generator.flush();
+    }
+
     //todo: consider moving this to a more general location to be used by other controllers
     public static void verifyResultNotEmpty(ResultSet rs) throws SQLException {
         if (!rs.isBeforeFirst()){
@@ -151,18 +317,6 @@ public class ContainerController {
         }
     }
 
-    private static String completeIdsInQuery(List<Integer> ids, String str){
-        Iterator<Integer> idsIterator = ids.iterator();
-        while(idsIterator.hasNext())
-        {
-            str = str + idsIterator.next().toString();
-            if(idsIterator.hasNext()){
-                str = str + ",";
-            }
-        }
-        return str + ")";
-    }
-
     /**
      * Create a new container
      *
@@ -200,44 +354,44 @@ public class ContainerController {
 
         String locationCode = LocationController.getLocationCodeById(container.getLocationId()).toUpperCase();
         int year = Calendar.getInstance().get(Calendar.YEAR);
-        String maxNumber = getMaxContainerNumber(year, locationCode);
-        int maxNumberParsed = maxNumber != null ?
-                Integer.parseInt(
-                        maxNumber.substring(maxNumber.indexOf("/") + 1,
-                                maxNumber.indexOf("-"))) + 1 :
-                1;
-        if (maxNumberParsed > 999) {
-            throw new ValidationException(String.format("Could not create container in %s. Max number of containers reached. Please wait until next year.",
-                    LocationController.getLocationNameByLocationId(container.getLocationId())));
-        }
 
         Record baseRecord = RecordController.getRecordById(container.getChildRecordIds().get(0), userId);
         container.setConsignmentCode(baseRecord.getConsignmentCode());
         container.setScheduleId(baseRecord.getScheduleId());
         container.setTypeId(baseRecord.getTypeId());
-        String ggg = String.format("%03d", maxNumberParsed);
-        container.setContainerNumber(year + "/" + ggg + "-" + locationCode);
         container.setStateId(RecordState.ARCHIVED_LOCAL.getId());
 
         LOGGER.info("Passed all validation checks. Creating container {}", container);
 
-        int newContainerId = saveContainerToDb(container);
-        if (newContainerId < 0) {
-            throw new SQLException("Unable to save container to database.");
-        }
+        int newContainerId = UnitOfWork.inTransaction(() -> {
+            // Take the number in the transaction, so a create that fails rolls it back instead of using it up
+            int containerNumber = nextContainerNumber(year, locationCode);
+            if (containerNumber > MAX_CONTAINERS_PER_YEAR) {
+                throw new ValidationException(String.format("Could not create container in %s. Max number of containers reached. Please wait until next year.",
+                        LocationController.getLocationNameByLocationId(container.getLocationId())));
+            }
+            String ggg = String.format("%03d", containerNumber);
+            container.setContainerNumber(year + "/" + ggg + "-" + locationCode);
 
-        if (!StringUtils.isEmpty(container.getNotes())){
-            NoteTableController.saveNotesForContainer(newContainerId, container.getNotes());
-        }
+            int containerId = saveContainerToDb(container);
+            if (containerId < 0) {
+                throw new SQLException("Unable to save container to database.");
+            }
 
-        LOGGER.info("Created container. Container Id {}", newContainerId);
-        AuditLogger.log(userId, AuditLogger.Target.CONTAINER, newContainerId, AuditLogger.ACTION.CREATE);
+            if (!StringUtils.isEmpty(container.getNotes())){
+                NoteTableController.saveNotesForContainer(containerId, container.getNotes());
+            }
 
-        // Update records to point to the new container
-        for (int recordId : container.getChildRecordIds()){
-            RecordController.setRecordContainer(recordId, newContainerId);
-            AuditLogger.log(userId, AuditLogger.Target.RECORD, recordId, AuditLogger.ACTION.UPDATE);
-        }
+            LOGGER.info("Created container. Container Id {}", containerId);
+            AuditLogger.log(userId, AuditLogger.Target.CONTAINER, containerId, AuditLogger.ACTION.CREATE);
+
+            // Update records to point to the new container
+            for (int recordId : container.getChildRecordIds()){
+                RecordController.setRecordContainer(recordId, containerId);
+                AuditLogger.log(userId, AuditLogger.Target.RECORD, recordId, AuditLogger.ACTION.UPDATE);
+            }
+            return containerId;
+        });
 
         return getContainerById(newContainerId, userId);
     }
@@ -299,11 +453,34 @@ public class ContainerController {
         }
     }
 
+    private static final int MAX_CONTAINERS_PER_YEAR = 999;
+    private static final int CONTAINER_NUMBER_BLOCK_SIZE = NumberSequence.getBlockSize("CONTAINER.NUMBER_BLOCK_SIZE");
+    /**
+     * Get the next "ggg" for a container number "yyyy/ggg-LOC" from the sequence of the year and location
+     *
+     * @param year
+     * @param locationCode
+     * @return the number, which may be over MAX_CONTAINERS_PER_YEAR
+     * @throws SQLException
+     */
+    private static int nextContainerNumber(int year, String locationCode) throws SQLException {
+        return NumberSequence.next("CONTAINER:" + year + "/" + locationCode, CONTAINER_NUMBER_BLOCK_SIZE, () -> {
+            String maxNumber = getMaxContainerNumber(year, locationCode);
+            return maxNumber != null ?
+                    Integer.parseInt(maxNumber.substring(maxNumber.indexOf("/") + 1, maxNumber.indexOf("-"))) :
+                    0;
+        });
+    }
+
+    /**
+     * Only used to seed the sequence of a year and location the first time a container is created there
+     */
     private static final String GET_MAX_CONTAINER_NUMBER =
             "SELECT Number " +
             "FROM containers " +
             "WHERE Number LIKE ? " +
-            "ORDER BY Number DESC";
+            "ORDER BY Number DESC " +
+            "LIMIT 1";
     private static String getMaxContainerNumber(int year, String locationCode) throws SQLException {
         try (Connection connection = DbConnect.getConnection();
             PreparedStatement ps = connection.prepareStatement(GET_MAX_CONTAINER_NUMBER)) {
@@ -347,6 +524,7 @@ public class ContainerController {
                 return -1;
             }
 
+            SearchIndex.containerSaved(newContainerId, c.getContainerNumber());
             return newContainerId;
         }
     }
@@ -411,6 +589,22 @@ public class ContainerController {
         }
     }
 
+    /**
+     * Clear the record information of those of the given containers that no longer hold any records
+     *
+     * @param containerIds
+     * @throws SQLException
+     */
+    private static final String CLEAR_EMPTY_CONTAINERS_RECORD_INFORMATION =
+            "UPDATE containers AS C " +
+            "SET C.ScheduleId = NULL, C.TypeId = NULL, C.UpdatedAt = NOW() " +
+            "WHERE C.Id IN (%s) " +
+            "AND NOT EXISTS (SELECT 1 FROM records AS R WHERE R.ContainerId = C.Id)";
+    public static void clearRecordInformationOfEmptyContainers(Collection<Integer> containerIds) throws SQLException {
+        int cleared = MultiGet.update(CLEAR_EMPTY_CONTAINERS_RECORD_INFORMATION, containerIds);
+        LOGGER.info("Cleared record information of {} empty containers out of {}", cleared, containerIds);
+    }
+
     private static final String UPDATE_CONTAINER =
             "UPDATE containers " +
             "SET Title = ?, StateId = ?, LocationId = ?, ConsignmentCode = ?, UpdatedAt = NOW() " +
@@ -442,15 +636,17 @@ public class ContainerController {
 
         LOGGER.info("Passed all validation checks. Updating Container {}", container); //todo this message could be better
 
-        try (Connection connection = DbConnect.getConnection();
-             PreparedStatement ps = connection.prepareStatement(UPDATE_CONTAINER)) {
+        UnitOfWork.runInTransaction(() -> {
+            try (Connection connection = DbConnect.getConnection();
+                 PreparedStatement ps = connection.prepareStatement(UPDATE_CONTAINER)) {
 
-            ps.setString(1, container.getTitle());
-            ps.setInt(2, container.getStateId());
-            ps.setInt(3, container.getLocationId());
-            ps.setString(4, container.getConsignmentCode());
-            ps.setInt(5, containerId);
-            ps.executeUpdate();
+                ps.setString(1, container.getTitle());
+                ps.setInt(2, container.getStateId());
+                ps.setInt(3, container.getLocationId());
+                ps.setString(4, container.getConsignmentCode());
+                ps.setInt(5, containerId);
+                ps.executeUpdate();
+            }
 
             // Update container notes
             if (!StringUtils.isEmpty(container.getNotes())){
@@ -465,111 +661,57 @@ public class ContainerController {
             }
 
             AuditLogger.log(userId, AuditLogger.Target.CONTAINER, containerId, AuditLogger.ACTION.UPDATE);
+        });
 
-            return getContainerById(containerId, userId);
-        }
-    }
-
-    /**
-     * Retrieve containers filtered by container number
-     *
-     * @param containerNumber
-     * @return a list of containers
-     */
-    private static final String GET_CONTAINER_BY_NUMBER =
-            "SELECT * FROM containers " +
-            "WHERE (LocationId IN " +
-                "(SELECT LocationId  " +
-                "FROM locations l  LEFT JOIN userlocations ul ON (ul.LocationId = l.Id ) " +
-                "WHERE l.Restricted = false OR ul.UserId = ?) " +
-            "OR LocationId IS NULL) " +
-            "AND Number LIKE ? " +
-            "ORDER BY Number ASC " +
-            "LIMIT ?, ?";
-    public static List<Container> getContainerPageByNumber(String number, int userId,
-                                                           int page, int pageSize, int offset) throws SQLException {
-        List<Container> containers = new ArrayList<>();
-        try (Connection connection = DbConnect.getConnection();
-             PreparedStatement ps = connection.prepareStatement(GET_CONTAINER_BY_NUMBER)) {
-            ps.setInt(1, userId);
-            ps.setString(2, "%" + number + "%");
-            ps.setInt(3, (page - 1) * pageSize + offset);
-            ps.setInt(4, pageSize);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    Container container = parseResultSet(rs);
-                    containers.add(container);
-                }
-            }
-        }
-        return containers;
-    }
-
-    private static final String GET_CONTAINER_COUNT_BY_NUMBER =
-            "SELECT COUNT(*) FROM containers " +
-            "WHERE (LocationId IN" +
-                "(SELECT LocationId  " +
-                "FROM locations l  LEFT JOIN userlocations ul ON (ul.LocationId = l.Id ) " +
-                "WHERE l.Restricted = false OR ul.UserId = ?) " +
-            "OR LocationId IS NULL) " +
-            "AND Number LIKE ? ";
-    public static int getContainerCountByNumber(String number, int userId) throws SQLException {
-        try (Connection connection = DbConnect.getConnection();
-            PreparedStatement pst = connection.prepareStatement(GET_CONTAINER_COUNT_BY_NUMBER)) {
-            pst.setInt(1, userId);
-            pst.setString(2, "%" + number + "%");
-            try (ResultSet rs = pst.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1);
-                } else {
-                    LOGGER.error(String.format("Could not get count of containers: %s.", number));
-                    throw new SQLException(String.format("Could not get count of containers: %s.", number));
-                }
-            }
-        }
-    }
-
-
-    /**
-     * Delete one container by id
-     *
-     * @param id
-     *
-     */
-    private static final String DELETE_CONTAINERS＿BY_ID =
-            "DELETE FROM containers" + " WHERE Id = ?";
-
-    private static final void deleteOneContainer(Integer id) throws SQLException {
-
-        try (Connection connection = DbConnect.getConnection();
-             PreparedStatement ps = connection.prepareStatement(DELETE_CONTAINERS＿BY_ID)) {
-            LOGGER.info("Deleting container {}", id);
-            ps.setInt(1, id);
-            ps.executeUpdate();
-        }
+        return getContainerById(containerId, userId);
     }
 
     /**
-     * Delete containers by ids
+     * Delete containers by ids. Existence, location and emptiness of all the containers are checked with one
+     * query, then the containers and their notes are deleted with set-based statements in one transaction.
      *
      * @param ids
      * @return Http Status Code
      */
+    private static final String GET_CONTAINERS_TO_DELETE =
+            "SELECT c.Id, c.Number, c.LocationId, COUNT(r.Id) AS RecordCount " +
+            "FROM containers c " +
+            "LEFT JOIN records r ON r.ContainerId = c.Id " +
+            "WHERE c.Id IN (%s) " +
+            "GROUP BY c.Id, c.Number, c.LocationId";
+    private static final String DELETE_CONTAINERS =
+            "DELETE FROM containers WHERE Id IN (%s)";
     public static final ResponseEntity<?> deleteContainers(List<Integer> ids, Integer userId) throws SQLException{
         if (!Authenticator.authenticate(userId, Role.ADMINISTRATOR) && !Authenticator.authenticate(userId, Role.RMC)) {
             throw new AuthenticationException(String.format("You do not have permission to delete containers."));
         }
+        if (ids.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.OK);
+        }
         Map<String, Object> errorResponse = new HashMap<>();
         List<String> listOfContainerNumbers = new ArrayList<>();
 
+        Map<Integer, String> numbers = new HashMap<>();
+        Map<Integer, Integer> locationIds = new HashMap<>();
+        Map<Integer, Integer> recordCounts = new HashMap<>();
+        MultiGet.forEachRow(GET_CONTAINERS_TO_DELETE, ids, rs -> {
+            int id = rs.getInt("Id");
+            numbers.put(id, rs.getString("Number"));
+            locationIds.put(id, rs.getInt("LocationId"));
+            recordCounts.put(id, rs.getInt("RecordCount"));
+        });
+
+        Principal principal = Authenticator.getPrincipal(userId);
         for (Integer id : ids) {
-            Container container = ContainerController.getContainerById(id, userId);
-            if(!Authenticator.isUserAuthenticatedForLocation(userId, container.getLocationId())){
+            if (!locationIds.containsKey(id)) {
+                throw new NoResultsFoundException("This container does not exist.");
+            }
+            if (!principal.isAssignedTo(locationIds.get(id))) {
                 throw new AuthenticationException(String.format("You do not have permission to delete container %s from your location.",
-                        container.getContainerNumber()));
+                        numbers.get(id)));
             }
-            if (!getRecordIdsInContainer(id).isEmpty()) {
-                listOfContainerNumbers.add(container.getContainerNumber());
+            if (recordCounts.get(id) > 0) {
+                listOfContainerNumbers.add(numbers.get(id));
             }
         }
 
@@ -579,11 +721,15 @@ public class ContainerController {
 
         if(errorResponse.isEmpty()) {
             LOGGER.info("Passed all validation checks. Deleting container {}", ids);
-            for (Integer id : ids) {
-                deleteOneContainer(id);
-                NoteTableController.deleteNotesForContainer(id);
-                AuditLogger.log(userId, AuditLogger.Target.CONTAINER, id, AuditLogger.ACTION.DELETE);
-            }
+            UnitOfWork.runInTransaction(() -> {
+                int deleted = MultiGet.update(DELETE_CONTAINERS, ids);
+                NoteTableController.deleteNotesForContainers(ids);
+                LOGGER.info("Deleted {} containers", deleted);
+                for (int id : MultiGet.distinct(ids)) {
+                    SearchIndex.containerDeleted(id);
+                    AuditLogger.log(userId, AuditLogger.Target.CONTAINER, id, AuditLogger.ACTION.DELETE);
+                }
+            });
             return new ResponseEntity<>(HttpStatus.OK);
         }else{
             errorResponse.put("error", "The container(s) are not empty and still contain records");
@@ -6,8 +6,15 @@ import com.zaxxer.hikari.HikariDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DbConnect {
     private static final Logger LOGGER = LoggerFactory.getLogger(DbConnect.class);
@@ -25,6 +32,12 @@ public class DbConnect {
     // Init connection pool properties
     private static HikariDataSource dataSource;
 
+    // A streamed response holds its connection until the whole body is written; at most this many run at once
+    // so that large exports cannot take every connection in the pool
+    private static final int DEFAULT_MAX_STREAMS = 4;
+    private static final long STREAM_WAIT_SECONDS = 30;
+    private static final Semaphore STREAMS = new Semaphore(getMaxStreams(), true);
+
     static {
         HikariConfig config = new HikariConfig();
         config.setDriverClassName(DRIVER_NAME);
@@ -34,6 +47,10 @@ public class DbConnect {
         config.addDataSourceProperty("cachePrepStmts", "true");
         config.addDataSourceProperty("prepStmtCacheSize", "250");
         config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        // Send batched inserts as multi-row statements instead of one round trip per row
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        // Streamed lists read child ids with GROUP_CONCAT, which cuts its result at 1024 bytes by default
+        config.addDataSourceProperty("sessionVariables", "group_concat_max_len=4194304");
 
         dataSource = new HikariDataSource(config);
     }
@@ -42,7 +59,22 @@ public class DbConnect {
     private DbConnect() {
     }
 
+    /**
+     * Get a connection. Inside a unit of work this is the connection bound to the current thread,
+     * otherwise a connection from the pool.
+     */
     public static Connection getConnection() {
+        UnitOfWork unit = UnitOfWork.current();
+        if (unit != null) {
+            return unit.getConnection();
+        }
+        return getPooledConnection();
+    }
+
+    /**
+     * Get a connection from the pool, bypassing any unit of work bound to the current thread
+     */
+    public static Connection getPooledConnection() {
         try {
             return dataSource.getConnection();
         } catch (SQLException e) {
@@ -51,6 +83,59 @@ public class DbConnect {
         }
     }
 
+    /**
+     * Get a connection from the pool for streaming a response. Waits while DATABASE.MAX_STREAMS streams are
+     * already running; closing the connection lets the next one start.
+     *
+     * @return the connection
+     * @throws SQLException if no stream slot or connection became free in time
+     */
+    public static Connection getStreamingConnection() throws SQLException {
+        try {
+            if (!STREAMS.tryAcquire(STREAM_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                throw new SQLException("Too many streaming responses in progress.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting to stream a response.", e);
+        }
+        Connection connection = getPooledConnection();
+        if (connection == null) {
+            STREAMS.release();
+            throw new SQLException("Unable to get a connection from the connection pool.");
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                            STREAMS.release();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Prepare a query whose rows the driver streams one at a time instead of reading the whole result into
+     * memory. Until the result set is closed, no other statement can run on the connection.
+     */
+    public static PreparedStatement prepareStreaming(Connection conn, String sql) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        // Connector/J streams forward-only, read-only results when the fetch size is Integer.MIN_VALUE
+        ps.setFetchSize(Integer.MIN_VALUE);
+        return ps;
+    }
+
+    private static int getMaxStreams() {
+        int maxStreams = PROPERTIES.getIntProperty("DATABASE.MAX_STREAMS");
+        return maxStreams < 1 ? DEFAULT_MAX_STREAMS : maxStreams;
+    }
+
     /**
      * Format DB credential
      */
@@ -7,7 +7,9 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class LocationController {
 
@@ -19,46 +21,104 @@ public class LocationController {
      * @return Location Code
      * @throws SQLException
      */
-    private static final String GET_LOCATION_CODE_BY_ID = "SELECT Code " +
+    public static String getLocationCodeById(int id) throws SQLException {
+        Location location = findLocationById(id);
+        if (location == null) {
+            throw new SQLException(String.format("Unable to retrieve location code for location id: %d.", id));
+        }
+        return location.getLocationCode();
+    }
+
+    /**
+     * Load Location Name given Location Id
+     *
+     * @param id
+     * @return Location Name
+     * @throws SQLException
+     */
+    public static String getLocationNameByLocationId(int id) throws SQLException{
+        Location location = findLocationById(id);
+        return location == null ? "" : location.getLocationName();
+    }
+
+    /**
+     * Find a location, served from the reference data cache
+     *
+     * @param id
+     * @return the location, or null if it does not exist
+     * @throws SQLException
+     */
+    private static final String GET_LOCATION_BY_ID = "SELECT Id, Name, Code " +
             "FROM locations " +
             "WHERE Id=?";
-    public static String getLocationCodeById(int id) throws SQLException {
+    static Location findLocationById(int id) throws SQLException {
+        Location location = ReferenceDataCache.lookup(ReferenceData::getLocations, id);
+        if (location != null || id <= 0) {
+            return location;
+        }
         try (Connection conn = DbConnect.getConnection();
-             PreparedStatement ps = conn.prepareStatement(GET_LOCATION_CODE_BY_ID)){
+             PreparedStatement ps = conn.prepareStatement(GET_LOCATION_BY_ID)){
             ps.setInt(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    return rs.getString("Code");
-                } else {
-                    throw new SQLException(String.format("Unable to retrieve location code for location id: %d.", id));
+                    ReferenceDataCache.invalidate();
+                    return new Location(rs.getInt("Id"), rs.getString("Name"), rs.getString("Code"));
                 }
             }
         }
+        return null;
     }
 
     /**
-     * Load Location Name given Location Id
+     * Load all locations for the reference data cache
      *
-     * @param id
-     * @return Location Name
+     * @return all locations
+     * @throws SQLException
+     */
+    private static final String GET_ALL_LOCATIONS = "SELECT Id, Name, Code " +
+            "FROM locations";
+    static List<Location> loadAllLocations() throws SQLException {
+        List<Location> locations = new ArrayList<>();
+        try (Connection conn = DbConnect.getConnection();
+             PreparedStatement ps = conn.prepareStatement(GET_ALL_LOCATIONS);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                locations.add(new Location(rs.getInt("Id"), rs.getString("Name"), rs.getString("Code")));
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * Load the ids of restricted locations for the reference data cache
+     *
+     * @return ids of restricted locations
      * @throws SQLException
      */
-    private static final String GET_LOCATION_NAME_BY_LOCATION_ID = "SELECT Name " +
+    private static final String GET_RESTRICTED_LOCATION_IDS = "SELECT Id " +
             "FROM locations " +
-            "WHERE Id=?";
+            "WHERE Restricted = true";
+    static Set<Integer> loadRestrictedLocationIds() throws SQLException {
+        Set<Integer> restricted = new HashSet<>();
+        try (Connection conn = DbConnect.getConnection();
+             PreparedStatement ps = conn.prepareStatement(GET_RESTRICTED_LOCATION_IDS);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                restricted.add(rs.getInt("Id"));
+            }
+        }
+        return restricted;
+    }
 
-    public static String getLocationNameByLocationId(int id) throws SQLException{
-       try (Connection conn = DbConnect.getConnection();
-            PreparedStatement ps = conn.prepareStatement(GET_LOCATION_NAME_BY_LOCATION_ID)){
-           ps.setInt(1, id);
-           try (ResultSet rs = ps.executeQuery()) {
-               if (rs.next()) {
-                   return rs.getString("Name");
-               }
-           }
-       }
-       return "";
-   }
+    /**
+     * Get the ids of restricted locations, served from the reference data cache
+     *
+     * @return
+     * @throws SQLException
+     */
+    public static Set<Integer> getRestrictedLocationIds() throws SQLException {
+        return ReferenceDataCache.get().getRestrictedLocationIds();
+    }
 
    private static final String GET_USER_LOCATIONS = "SELECT * " +
            "FROM locations " +
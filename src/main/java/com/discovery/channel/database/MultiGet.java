@@ -0,0 +1,272 @@
+package com.discovery.channel.database;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Queries by a list of ids with an "IN (%s)" clause.
+ *
+ * Ids are deduplicated and bound as parameters. The parameter list is padded (by repeating the last id) up to
+ * one of a few fixed sizes, so only a handful of distinct statements are ever prepared and the prepared
+ * statement cache can reuse them. Lists longer than the largest size are split into several queries.
+ */
+final class MultiGet {
+    static final int[] ARITIES = {1, 4, 16, 64, 256};
+    static final int MAX_CHUNK_SIZE = ARITIES[ARITIES.length - 1];
+
+    private static final Map<Integer, String> IN_CLAUSES = new HashMap<>();
+    static {
+        for (int arity : ARITIES) {
+            IN_CLAUSES.put(arity, String.join(",", Collections.nCopies(arity, "?")));
+        }
+    }
+
+    @FunctionalInterface
+    interface Binder {
+        /**
+         * Bind the parameters that come before the id list
+         *
+         * @return the index of the first id parameter
+         */
+        int bind(PreparedStatement ps) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface RowHandler {
+        void handle(ResultSet rs) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private static final Binder NO_PARAMETERS = ps -> 1;
+
+    // Hide constructor
+    private MultiGet() {
+    }
+
+    /**
+     * Get one row per id, in the order the ids were requested. Ids without a row are skipped.
+     *
+     * @param sqlTemplate query with a single %s where the id parameters go
+     * @param idColumn column holding the id of each row
+     * @param ids
+     * @param mapper
+     * @return
+     * @throws SQLException
+     */
+    static <T> List<T> getByIds(String sqlTemplate, String idColumn, Collection<Integer> ids, RowMapper<T> mapper)
+            throws SQLException {
+        Map<Integer, T> rows = new HashMap<>();
+        forEachRow(sqlTemplate, ids, rs -> rows.put(rs.getInt(idColumn), mapper.map(rs)));
+
+        List<T> ordered = new ArrayList<>(rows.size());
+        for (Integer id : distinct(ids)) {
+            T row = rows.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+
+    static void forEachRow(String sqlTemplate, Collection<Integer> ids, RowHandler handler) throws SQLException {
+        forEachRow(sqlTemplate, NO_PARAMETERS, ids, handler);
+    }
+
+    /**
+     * Run the query for every chunk of ids and pass each row to the handler
+     *
+     * @param sqlTemplate query with a single %s where the id parameters go
+     * @param leading binds the parameters before the id list
+     * @param ids
+     * @param handler
+     * @throws SQLException
+     */
+    static void forEachRow(String sqlTemplate, Binder leading, Collection<Integer> ids, RowHandler handler)
+            throws SQLException {
+        List<Integer> distinctIds = distinct(ids);
+        if (distinctIds.isEmpty()) {
+            return;
+        }
+        try (Connection conn = DbConnect.getConnection()) {
+            for (List<Integer> chunk : chunk(distinctIds)) {
+                try (PreparedStatement ps = prepare(conn, sqlTemplate, leading, chunk);
+                     ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        handler.handle(rs);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Stream the rows for the ids to the writer one at a time, in the order the ids were requested. The driver
+     * does not read the whole result into memory, so memory use does not grow with the number of rows.
+     *
+     * Streaming holds a connection of its own from DbConnect.getStreamingConnection(): no other statement can
+     * run on a connection while it streams, and the writer may run queries of its own. The request's unit of work
+     * is closed before the stream starts, so a streamed response uses one connection.
+     *
+     * @param sqlTemplate query with %1$s in both the IN list and an ORDER BY FIELD(id, %1$s) clause
+     * @param leading binds the parameters before the id lists
+     * @param ids
+     * @param writer
+     * @throws SQLException
+     * @throws IOException
+     */
+    static void streamRows(String sqlTemplate, Binder leading, Collection<Integer> ids, RowWriter writer)
+            throws SQLException, IOException {
+        List<Integer> distinctIds = distinct(ids);
+        if (distinctIds.isEmpty()) {
+            return;
+        }
+        try (Connection conn = DbConnect.getStreamingConnection()) {
+            for (List<Integer> chunk : chunk(distinctIds)) {
+                String inClause = inClause(arity(chunk.size()));
+                try (PreparedStatement ps = DbConnect.prepareStreaming(conn, String.format(sqlTemplate, inClause))) {
+                    int index = leading.bind(ps);
+                    index = bindIds(ps, index, chunk);
+                    bindIds(ps, index, chunk);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            writer.write(rs);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Run an update for every chunk of ids
+     *
+     * @param sqlTemplate statement with a single %s where the id parameters go
+     * @param ids
+     * @return number of rows updated
+     * @throws SQLException
+     */
+    static int update(String sqlTemplate, Collection<Integer> ids) throws SQLException {
+        return update(sqlTemplate, NO_PARAMETERS, ids);
+    }
+
+    /**
+     * Run an update for every chunk of ids
+     *
+     * @param sqlTemplate statement with a single %s where the id parameters go
+     * @param leading binds the parameters before the id list
+     * @param ids
+     * @return number of rows updated
+     * @throws SQLException
+     */
+    static int update(String sqlTemplate, Binder leading, Collection<Integer> ids) throws SQLException {
+        List<Integer> distinctIds = distinct(ids);
+        int rowsUpdated = 0;
+        if (distinctIds.isEmpty()) {
+            return rowsUpdated;
+        }
+        try (Connection conn = DbConnect.getConnection()) {
+            for (List<Integer> chunk : chunk(distinctIds)) {
+                try (PreparedStatement ps = prepare(conn, sqlTemplate, leading, chunk)) {
+                    rowsUpdated += ps.executeUpdate();
+                }
+            }
+        }
+        return rowsUpdated;
+    }
+
+    /**
+     * @return the smallest arity that fits count ids
+     */
+    static int arity(int count) {
+        for (int arity : ARITIES) {
+            if (count <= arity) {
+                return arity;
+            }
+        }
+        throw new IllegalArgumentException("Too many ids for one query: " + count);
+    }
+
+    /**
+     * @return "?,?,...,?" with as many parameters as the arity
+     */
+    static String inClause(int arity) {
+        return IN_CLAUSES.get(arity);
+    }
+
+    static List<Integer> distinct(Collection<Integer> ids) {
+        List<Integer> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinctIds.remove(null);
+        return distinctIds;
+    }
+
+    static List<List<Integer>> chunk(List<Integer> ids) {
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int start = 0; start < ids.size(); start += MAX_CHUNK_SIZE) {
+            chunks.add(ids.subList(start, Math.min(start + MAX_CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+
+    private static PreparedStatement prepare(Connection conn, String sqlTemplate, Binder leading, List<Integer> chunk)
+            throws SQLException {
+        int arity = arity(chunk.size());
+        PreparedStatement ps = conn.prepareStatement(String.format(sqlTemplate, inClause(arity)));
+        try {
+            bindIds(ps, leading.bind(ps), chunk);
+        } catch (SQLException e) {
+            ps.close();
+            throw e;
+        }
+        return ps;
+    }
+
+    /**
+     * Bind a chunk of ids, padded up to its arity
+     *
+     * @return the index of the parameter after the ids
+     */
+    private static int bindIds(PreparedStatement ps, int index, List<Integer> chunk) throws SQLException {
+        for (int id : chunk) {
+            ps.setInt(index++, id);
+        }
+        // Pad with the last id; repeating a value in IN () does not change the result
+        int last = chunk.get(chunk.size() - 1);
+        for (int i = chunk.size(); i < arity(chunk.size()); i++) {
+            ps.setInt(index++, last);
+        }
+        return index;
+    }
+
+    /**
+     * @param concatenated ids joined by commas, as GROUP_CONCAT returns them, or null
+     * @return the ids
+     */
+    static List<Integer> splitIds(String concatenated) {
+        List<Integer> ids = new ArrayList<>();
+        if (concatenated != null && !concatenated.isEmpty()) {
+            for (String id : concatenated.split(",")) {
+                ids.add(Integer.valueOf(id));
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,142 @@
+package com.discovery.channel.database;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Storage format of notes: the text is encoded once and split into fixed-size chunks, one notes row each.
+ *
+ * An encoded note starts with HEADER followed by a codec byte: DEFLATE for deflated UTF-8 in base64, or PLAIN
+ * for the text itself when deflating does not make it smaller. Rows written before this format have no header
+ * and are read as plain text.
+ */
+class NoteCodec {
+    static final char HEADER = '\u0001';
+    static final char PLAIN = 'P';
+    static final char DEFLATE = 'D';
+    static final int CHUNK_SIZE = 8192;
+
+    // Hide constructor
+    private NoteCodec() {
+    }
+
+    /**
+     * Encode notes and split them into chunks
+     *
+     * @param notes
+     * @return the chunks in order
+     */
+    static List<String> encode(String notes) {
+        byte[] bytes = notes.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setInput(bytes);
+        deflater.finish();
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream(bytes.length / 2 + 16);
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            deflated.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+
+        String compressed = Base64.getEncoder().encodeToString(deflated.toByteArray());
+        String encoded = compressed.length() < notes.length() ?
+                "" + HEADER + DEFLATE + compressed :
+                "" + HEADER + PLAIN + notes;
+
+        List<String> chunks = new ArrayList<>(encoded.length() / CHUNK_SIZE + 1);
+        int start = 0;
+        while (start < encoded.length()) {
+            int end = Math.min(start + CHUNK_SIZE, encoded.length());
+            // Keep surrogate pairs of plain text in one chunk
+            if (end < encoded.length() && Character.isHighSurrogate(encoded.charAt(end - 1))) {
+                end--;
+            }
+            chunks.add(encoded.substring(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Reassembles a note from its chunks as they are read, without joining the encoded chunks first
+     */
+    static class Decoder {
+        private StringBuilder plain;
+        private Inflater inflater;
+        private ByteArrayOutputStream inflated;
+        // Base64 characters left over from the last chunk, decoded together with the next one
+        private String pending = "";
+
+        void append(String chunk) {
+            if (chunk == null || chunk.isEmpty()) {
+                return;
+            }
+            if (plain == null && inflater == null) {
+                if (chunk.length() >= 2 && chunk.charAt(0) == HEADER && chunk.charAt(1) == DEFLATE) {
+                    inflater = new Inflater();
+                    inflated = new ByteArrayOutputStream();
+                    chunk = chunk.substring(2);
+                } else {
+                    plain = new StringBuilder();
+                    if (chunk.length() >= 2 && chunk.charAt(0) == HEADER && chunk.charAt(1) == PLAIN) {
+                        chunk = chunk.substring(2);
+                    }
+                }
+            }
+            if (plain != null) {
+                plain.append(chunk);
+            } else {
+                inflate(chunk);
+            }
+        }
+
+        private void inflate(String chunk) {
+            String base64 = pending + chunk;
+            int complete = base64.length() - base64.length() % 4;
+            pending = base64.substring(complete);
+            inflater.setInput(Base64.getDecoder().decode(base64.substring(0, complete)));
+            byte[] buffer = new byte[8192];
+            try {
+                while (!inflater.needsInput() && !inflater.finished()) {
+                    inflated.write(buffer, 0, inflater.inflate(buffer));
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Notes are not valid deflate data", e);
+            }
+        }
+
+        /**
+         * @return the notes, or null if there were none
+         */
+        String finish() {
+            if (inflater != null) {
+                if (!pending.isEmpty()) {
+                    throw new IllegalStateException("Notes end with incomplete base64 data");
+                }
+                inflater.end();
+                return new String(inflated.toByteArray(), StandardCharsets.UTF_8);
+            }
+            return plain == null || plain.length() == 0 ? null : plain.toString();
+        }
+    }
+
+    /**
+     * Decode notes stored in one or more chunks
+     *
+     * @param chunks the chunks in order
+     * @return the notes, or null if there were none
+     */
+    static String decode(List<String> chunks) {
+        Decoder decoder = new Decoder();
+        for (String chunk : chunks) {
+            decoder.append(chunk);
+        }
+        return decoder.finish();
+    }
+}
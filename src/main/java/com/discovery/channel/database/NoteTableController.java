@@ -1,17 +1,31 @@
 package com.discovery.channel.database;
 
+import com.discovery.channel.exception.IllegalArgumentException;
 import com.discovery.channel.model.NoteTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class NoteTableController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NoteTableController.class);
+    private static final MediaType TEXT_PLAIN_UTF8 = MediaType.parseMediaType("text/plain;charset=UTF-8");
 
     /**
      * Get notes
@@ -25,18 +39,18 @@ public class NoteTableController {
             "WHERE TableId=? AND RowId=? " +
             "ORDER BY Chunk ASC";
     private static String getNotes(NoteTable noteTable, int id) throws SQLException {
-        String notes = "";
+        NoteCodec.Decoder decoder = new NoteCodec.Decoder();
         try (Connection conn = DbConnect.getConnection();
              PreparedStatement ps = conn.prepareStatement(GET_NOTES)) {
             ps.setInt(1, noteTable.id);
             ps.setInt(2, id);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    notes = notes + rs.getString("Text");
+                    decoder.append(rs.getString("Text"));
                 }
             }
         }
-        return notes.isEmpty() ? null : notes;
+        return decoder.finish();
     }
 
     public static String getRecordNotes(int recordId) throws SQLException {
@@ -48,33 +62,189 @@ public class NoteTableController {
     }
 
     /**
-     * Save notes to db
+     * Get notes for many rows of the same table in one query
+     *
+     * @param noteTable
+     * @param ids
+     * @return notes keyed by row id; rows without notes are absent
+     * @throws SQLException
+     */
+    private static final String GET_NOTES_FOR_ROWS = "SELECT RowId, Text " +
+            "FROM notes " +
+            "WHERE TableId=? AND RowId IN (%s) " +
+            "ORDER BY RowId ASC, Chunk ASC";
+    private static Map<Integer, String> getNotes(NoteTable noteTable, Collection<Integer> ids) throws SQLException {
+        Map<Integer, NoteCodec.Decoder> decoders = new HashMap<>();
+        MultiGet.forEachRow(GET_NOTES_FOR_ROWS,
+                ps -> {
+                    ps.setInt(1, noteTable.id);
+                    return 2;
+                },
+                ids,
+                rs -> decoders.computeIfAbsent(rs.getInt("RowId"), k -> new NoteCodec.Decoder())
+                        .append(rs.getString("Text")));
+        Map<Integer, String> notes = new HashMap<>();
+        decoders.forEach((id, decoder) -> {
+            String text = decoder.finish();
+            if (text != null) {
+                notes.put(id, text);
+            }
+        });
+        return notes;
+    }
+
+    public static Map<Integer, String> getRecordNotes(Collection<Integer> recordIds) throws SQLException {
+        return getNotes(NoteTable.RECORDS, recordIds);
+    }
+
+    public static Map<Integer, String> getContainerNotes(Collection<Integer> containerIds) throws SQLException {
+        return getNotes(NoteTable.CONTAINERS, containerIds);
+    }
+
+    /**
+     * Get the length of the notes of many rows without reading the notes. The first chunk of notes saved in the
+     * NoteCodec format holds the length of the whole text; rows saved before it have no Length and count their text.
+     *
+     * @param noteTable
+     * @param ids
+     * @return length in characters keyed by row id; rows without notes are absent
+     * @throws SQLException
+     */
+    private static final String GET_NOTE_LENGTHS = "SELECT RowId, SUM(COALESCE(Length, CHAR_LENGTH(Text))) AS NotesLength " +
+            "FROM notes " +
+            "WHERE TableId=? AND RowId IN (%s) " +
+            "GROUP BY RowId";
+    private static Map<Integer, Integer> getNoteLengths(NoteTable noteTable, Collection<Integer> ids) throws SQLException {
+        Map<Integer, Integer> lengths = new HashMap<>();
+        MultiGet.forEachRow(GET_NOTE_LENGTHS,
+                ps -> {
+                    ps.setInt(1, noteTable.id);
+                    return 2;
+                },
+                ids,
+                rs -> {
+                    if (rs.getInt("NotesLength") > 0) {
+                        lengths.put(rs.getInt("RowId"), rs.getInt("NotesLength"));
+                    }
+                });
+        return lengths;
+    }
+
+    public static Map<Integer, Integer> getRecordNoteLengths(Collection<Integer> recordIds) throws SQLException {
+        return getNoteLengths(NoteTable.RECORDS, recordIds);
+    }
+
+    public static Map<Integer, Integer> getContainerNoteLengths(Collection<Integer> containerIds) throws SQLException {
+        return getNoteLengths(NoteTable.CONTAINERS, containerIds);
+    }
+
+    /**
+     * Answer a request for a byte range of notes, as in an HTTP Range header such as "bytes=0-1023" or "bytes=-500".
+     * Bytes are counted in the UTF-8 encoding of the notes. As RFC 7233 asks, a range that is not valid, such as one
+     * ending before it starts, is ignored and the whole notes are returned.
+     *
+     * @param notes the whole notes, or null if there are none
+     * @param range
+     * @return 206 with the bytes of the range, 200 with all the bytes if the range is not valid,
+     * or 416 if the range starts at or past the end of the notes
+     */
+    private static final Pattern BYTE_RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+    public static ResponseEntity<byte[]> getNotesBytes(String notes, String range) {
+        byte[] bytes = (notes == null ? "" : notes).getBytes(StandardCharsets.UTF_8);
+        Matcher matcher = BYTE_RANGE.matcher(range.trim());
+        if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+            return getAllNotesBytes(bytes);
+        }
+
+        long start;
+        long end;
+        try {
+            if (matcher.group(1).isEmpty()) {
+                // The last bytes
+                start = Math.max(bytes.length - Long.parseLong(matcher.group(2)), 0);
+                end = bytes.length - 1;
+            } else {
+                start = Long.parseLong(matcher.group(1));
+                if (!matcher.group(2).isEmpty() && Long.parseLong(matcher.group(2)) < start) {
+                    return getAllNotesBytes(bytes);
+                }
+                end = matcher.group(2).isEmpty() ?
+                        bytes.length - 1 :
+                        Math.min(Long.parseLong(matcher.group(2)), bytes.length - 1);
+            }
+        } catch (NumberFormatException e) {
+            // Too long for a long
+            return getAllNotesBytes(bytes);
+        }
+
+        if (start >= bytes.length) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + bytes.length)
+                    .build();
+        }
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + bytes.length)
+                .contentType(TEXT_PLAIN_UTF8)
+                .body(Arrays.copyOfRange(bytes, (int) start, (int) end + 1));
+    }
+
+    private static ResponseEntity<byte[]> getAllNotesBytes(byte[] bytes) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(TEXT_PLAIN_UTF8)
+                .body(bytes);
+    }
+
+    /**
+     * Save notes to db, encoded and split into chunks by NoteCodec
      *
      * @param recordId
      * @param notes
      * @throws SQLException
      */
-    private static final int MAX_NOTE_LEN = Integer.MAX_VALUE;
-    private static final String INSERT_NOTE = "INSERT INTO notes (TableId, RowId, Chunk, Text) " +
-            "VALUES(?, ? , ? , ?)";
+    private static final String INSERT_NOTE = "INSERT INTO notes (TableId, RowId, Chunk, Text, Length) " +
+            "VALUES(?, ? , ? , ?, ?)";
     private static void saveNotes(NoteTable noteTable, int id, String notes) throws SQLException {
         try (Connection conn = DbConnect.getConnection();
              PreparedStatement ps = conn.prepareStatement(INSERT_NOTE)){
-            int chunkNum = 0;
-            int startIndex = 0;
-            while (startIndex < notes.length()) {
-                ps.setInt(1, noteTable.id);
-                ps.setInt(2, id);
-                ps.setInt(3, chunkNum);
-                ps.setString(4, notes.substring(startIndex,
-                        startIndex + MAX_NOTE_LEN >= notes.length()? notes.length() : startIndex + MAX_NOTE_LEN));
-                ps.addBatch();
-                startIndex = startIndex + MAX_NOTE_LEN;
-                chunkNum = chunkNum + 1;
+            addNotesToBatch(ps, noteTable, id, notes);
+            ps.executeBatch();
+        }
+        LOGGER.info("Saved {} characters of notes for record or container {}", notes.length(), id);
+    }
+
+    private static void addNotesToBatch(PreparedStatement ps, NoteTable noteTable, int id, String notes)
+            throws SQLException {
+        List<String> chunks = NoteCodec.encode(notes);
+        for (int chunkNum = 0; chunkNum < chunks.size(); chunkNum++) {
+            ps.setInt(1, noteTable.id);
+            ps.setInt(2, id);
+            ps.setInt(3, chunkNum);
+            ps.setString(4, chunks.get(chunkNum));
+            // The first chunk holds the length of the whole text
+            ps.setInt(5, chunkNum == 0 ? notes.codePointCount(0, notes.length()) : 0);
+            ps.addBatch();
+        }
+    }
+
+    /**
+     * Save the notes of many records in one batch
+     *
+     * @param notesByRecordId
+     * @throws SQLException
+     */
+    public static void saveNotesForRecords(Map<Integer, String> notesByRecordId) throws SQLException {
+        if (notesByRecordId.isEmpty()) {
+            return;
+        }
+        try (Connection conn = DbConnect.getConnection();
+             PreparedStatement ps = conn.prepareStatement(INSERT_NOTE)){
+            for (Map.Entry<Integer, String> notes : notesByRecordId.entrySet()) {
+                addNotesToBatch(ps, NoteTable.RECORDS, notes.getKey(), notes.getValue());
             }
             ps.executeBatch();
         }
-        LOGGER.info("Saved notes {} for record {}", notes, id);
+        LOGGER.info("Saved notes for records {}", notesByRecordId.keySet());
     }
 
     public static void saveNotesForRecord(int recordId, String notes) throws SQLException {
@@ -105,6 +275,34 @@ public class NoteTableController {
         return rowsUpdated;
     }
 
+    /**
+     * Delete the notes of many records at once
+     *
+     * @param recordIds
+     * @return number of note entries deleted
+     * @throws SQLException
+     */
+    private static final String DELETE_NOTES_FOR_ROWS = "DELETE FROM notes " +
+            "WHERE TableId=? AND RowId IN (%s)";
+    private static int deleteNotes(NoteTable noteTable, Collection<Integer> ids) throws SQLException {
+        int rowsUpdated = MultiGet.update(DELETE_NOTES_FOR_ROWS,
+                ps -> {
+                    ps.setInt(1, noteTable.id);
+                    return 2;
+                },
+                ids);
+        LOGGER.info("Deleted {} note entries for records or containers {}", rowsUpdated, ids);
+        return rowsUpdated;
+    }
+
+    public static int deleteNotesForRecords(Collection<Integer> recordIds) throws SQLException {
+        return deleteNotes(NoteTable.RECORDS, recordIds);
+    }
+
+    public static int deleteNotesForContainers(Collection<Integer> containerIds) throws SQLException {
+        return deleteNotes(NoteTable.CONTAINERS, containerIds);
+    }
+
     public static int deleteNotesForRecord(int recordId) throws SQLException {
         return deleteNotes(NoteTable.RECORDS, recordId);
     }
@@ -0,0 +1,136 @@
+package com.discovery.channel.database;
+
+import com.discovery.channel.properties.DefaultProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named counters kept in the numbersequences table, used to hand out container and record numbers.
+ *
+ * Values are taken with a single UPDATE ... SET LastValue = LAST_INSERT_ID(LastValue) + n, which increments the
+ * row atomically, so concurrent callers (also on other servers) never get the same value. A sequence row is
+ * created on first use, starting from the seed, which should be the largest value already used.
+ *
+ * next() can take values from the database in blocks and hand them out from memory (hi/lo). Values of a block
+ * that are not used before a restart are skipped, so the block size defaults to 1.
+ *
+ * A single value is taken on the caller's connection, so inside a transaction a rollback gives it back. Blocks are
+ * shared by other callers once taken, so they are always taken on a connection of their own and committed at once.
+ */
+class NumberSequence {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NumberSequence.class);
+
+    private static final Map<String, Block> BLOCKS = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    interface Seed {
+        int get() throws SQLException;
+    }
+
+    // Values taken from the database but not handed out yet
+    private static class Block {
+        private int next = 1;
+        private int last = 0;
+    }
+
+    // Hide constructor
+    private NumberSequence() {
+    }
+
+    /**
+     * Get the next value of a sequence
+     *
+     * @param name
+     * @param blockSize how many values to take from the database when the values in memory run out
+     * @param seed the largest value used before the sequence existed
+     * @return the value
+     * @throws SQLException
+     */
+    static int next(String name, int blockSize, Seed seed) throws SQLException {
+        Block block = BLOCKS.computeIfAbsent(name, key -> new Block());
+        synchronized (block) {
+            if (block.next > block.last) {
+                int size = Math.max(blockSize, 1);
+                block.next = allocate(name, size, Integer.MAX_VALUE, seed, size == 1) + 1;
+                block.last = block.next + size - 1;
+            }
+            return block.next++;
+        }
+    }
+
+    /**
+     * Reserve consecutive values of a sequence, in the transaction of the current unit of work if there is one.
+     * Values past max are not taken, so fewer than count values are reserved when the sequence is nearly used up,
+     * and none once it reached max.
+     *
+     * @param name
+     * @param count
+     * @param max the largest value the sequence may hand out
+     * @param seed the largest value used before the sequence existed
+     * @return the first value; the values up to the smaller of first + count - 1 and max are reserved
+     * @throws SQLException
+     */
+    static int reserve(String name, int count, int max, Seed seed) throws SQLException {
+        return allocate(name, count, max, seed, true) + 1;
+    }
+
+    // LAST_INSERT_ID keeps the value before the increment, which is clamped so LastValue never passes the maximum
+    private static final String INCREMENT_SEQUENCE =
+            "UPDATE numbersequences " +
+            "SET LastValue = LAST_INSERT_ID(LastValue) + LEAST(?, GREATEST(? - LastValue, 0)) " +
+            "WHERE Name = ?";
+    private static final String GET_LAST_INSERT_ID = "SELECT LAST_INSERT_ID()";
+    private static final String CREATE_SEQUENCE =
+            "INSERT IGNORE INTO numbersequences (Name, LastValue) " +
+            "VALUES (?, ?)";
+    /**
+     * Take up to count values from the database, none past max
+     *
+     * @param joinTransaction whether to take them in the transaction of the current unit of work, if any
+     * @return the value before the ones taken
+     */
+    private static int allocate(String name, int count, int max, Seed seed, boolean joinTransaction)
+            throws SQLException {
+        // LAST_INSERT_ID is per connection, so both statements must run on the same one
+        try (Connection connection = joinTransaction ? DbConnect.getConnection() : DbConnect.getPooledConnection()) {
+            if (connection == null) {
+                throw new SQLException("Unable to get a connection from the connection pool.");
+            }
+            for (int attempt = 0; attempt < 2; attempt++) {
+                try (PreparedStatement ps = connection.prepareStatement(INCREMENT_SEQUENCE)) {
+                    ps.setInt(1, count);
+                    ps.setInt(2, max);
+                    ps.setString(3, name);
+                    if (ps.executeUpdate() == 1) {
+                        try (PreparedStatement select = connection.prepareStatement(GET_LAST_INSERT_ID);
+                             ResultSet rs = select.executeQuery()) {
+                            rs.next();
+                            return rs.getInt(1);
+                        }
+                    }
+                }
+                // First use; if another caller creates the row first, the insert is ignored
+                int start = seed.get();
+                LOGGER.info("Creating number sequence {} starting after {}", name, start);
+                try (PreparedStatement ps = connection.prepareStatement(CREATE_SEQUENCE)) {
+                    ps.setString(1, name);
+                    ps.setInt(2, start);
+                    ps.executeUpdate();
+                }
+            }
+        }
+        throw new SQLException(String.format("Could not allocate from number sequence %s.", name));
+    }
+
+    static int getBlockSize(String key) {
+        int size = DefaultProperties.getInstance().getIntProperty(key);
+        return size <= 0 ? 1 : size;
+    }
+}
@@ -1,22 +1,27 @@
 package com.discovery.channel.database;
 
 import com.discovery.channel.audit.AuditLogger;
+import com.discovery.channel.audit.HistoryEntry;
 import com.discovery.channel.authenticator.Authenticator;
+import com.discovery.channel.authenticator.Principal;
 import com.discovery.channel.authenticator.Role;
 import com.discovery.channel.exception.AuthenticationException;
 import com.discovery.channel.exception.IllegalArgumentException;
 import com.discovery.channel.exception.NoResultsFoundException;
 import com.discovery.channel.exception.ValidationException;
+import com.discovery.channel.form.BatchUpdateRecordForm;
 import com.discovery.channel.form.RecordsForm;
 import com.discovery.channel.form.UpdateRecordForm;
 import com.discovery.channel.model.*;
 import com.discovery.channel.response.BatchResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
 import java.sql.*;
 import java.sql.Date;
 import java.util.*;
@@ -28,77 +33,22 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 
 public class RecordController {
     private static final Logger LOGGER = LoggerFactory.getLogger(RecordController.class);
 
-    /**
-     * Retrieve records filtered by record number
-     *
-     * @param recordNumber
-     * @return a list of records
-     */
-    private static final String GET_RECORD_BY_NUMBER =
-            "SELECT * FROM records " +
-            "WHERE (LocationId IN " +
-                "(SELECT LocationId  " +
-                "FROM locations l  LEFT JOIN userlocations ul ON (ul.LocationId = l.Id ) " +
-                "WHERE l.Restricted = false OR ul.UserId = ?) " +
-            "OR LocationId IS NULL) " +
-            "AND records.Number LIKE ? " +
-            "ORDER BY Number ASC " +
-            " LIMIT ?, ?";
-    public static List<Record> getRecordPageByNumber(String number, int userId,
-                                                      int page, int pageSize) throws SQLException{
-        List<Record> records = new ArrayList<>();
-        try (Connection connection = DbConnect.getConnection();
-            PreparedStatement ps = connection.prepareStatement(GET_RECORD_BY_NUMBER)) {
-            ps.setInt(1, userId);
-            ps.setString(2, "%" + number + "%");
-            ps.setInt(3, (page - 1) * pageSize);
-            ps.setInt(4, pageSize);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    Record record = parseResultSet(rs);
-                    loadRecordDetail(record);
-                    records.add(record);
-                }
-            }
-        }
-        return records;
-    }
-
-    private static final String GET_RECORD_COUNT_BY_NUMBER =
-            "SELECT COUNT(*) FROM records " +
-            "WHERE (LocationId IN " +
-                "(SELECT LocationId  " +
-                "FROM locations l  LEFT JOIN userlocations ul ON (ul.LocationId = l.Id ) " +
-                "WHERE l.Restricted = false OR ul.UserId = ?) " +
-            "OR LocationId IS NULL) " +
-            "AND Number LIKE ?";
-    public static int getRecordCountByNumber(String number, int userId) throws SQLException {
-        try (Connection connection = DbConnect.getConnection();
-             PreparedStatement ps = connection.prepareStatement(GET_RECORD_COUNT_BY_NUMBER)) {
-            ps.setInt(1, userId);
-            ps.setString(2, "%" + number + "%");
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1);
-                } else {
-                    LOGGER.error(String.format("Could not get count of records: %s", number));
-                    throw new SQLException(String.format("Could not get count of records: %s.", number));
-                }
-            }
-        }
+    public static PagedResults<Document> getByNumber(String number,
+                                                   Boolean searchRecord, Boolean searchContainer,
+                                                   int page, int pageSize,
+                                                   int userId) throws SQLException {
+        return getByNumber(number, searchRecord, searchContainer, page, pageSize, userId, Projection.ALL);
     }
 
     public static PagedResults<Document> getByNumber(String number,
                                                    Boolean searchRecord, Boolean searchContainer,
                                                    int page, int pageSize,
-                                                   int userId) throws SQLException {
+                                                   int userId, Projection projection) throws SQLException {
         if (page < 1 || pageSize < 1) {
             throw new IllegalArgumentException("Page number and results per page must be at least 1.");
         }
@@ -106,41 +56,47 @@ public class RecordController {
             throw new IllegalArgumentException("Search must include at least one of the following: {record, container}.");
         }
 
-        int recordCount = 0;
-        int containerCount = 0;
-        List<Document> documents;
+        PagedResults<Document> results = SearchController.searchByNumber(number, searchRecord, searchContainer,
+                page, pageSize, userId, projection);
+        scrubDocuments(results.getResults(), userId);
+        return results;
+    }
 
-        if (searchRecord && searchContainer) {
-            recordCount = getRecordCountByNumber(number, userId);
-            containerCount = ContainerController.getContainerCountByNumber(number, userId);
+    /**
+     * Search records and/or containers by number, one page at a time using a cursor instead of an offset.
+     * Records come first, then containers, each ordered by (Number, Id).
+     *
+     * @param cursor nextCursor of the previous page, or empty for the first page
+     * @return a page of documents, with the cursor of the next page if there is one; only the first page
+     * has a page count
+     */
+    public static PagedResults<Document> getByNumberAfter(String number,
+                                                         Boolean searchRecord, Boolean searchContainer,
+                                                         String cursor, int pageSize,
+                                                         int userId) throws SQLException {
+        return getByNumberAfter(number, searchRecord, searchContainer, cursor, pageSize, userId, Projection.ALL);
+    }
 
-            if (recordCount >= page * pageSize) {
-                documents = (List)getRecordPageByNumber(number, userId, page, pageSize);
-            }
-            else if (recordCount > (page - 1) * pageSize &&
-                     recordCount < page * pageSize) {
-                documents = new ArrayList<>(pageSize);
-                documents.addAll((List)getRecordPageByNumber(number, userId, page, pageSize));
-                documents.addAll((List)ContainerController.getContainerPageByNumber(number, userId,
-                        1, pageSize - (recordCount - (page - 1) * pageSize), 0));
-            }
-            else { // recordCount < (page - 1) * pageSize
-                documents = (List)ContainerController.getContainerPageByNumber(number, userId,
-                        page - (recordCount + pageSize - 1) / pageSize, pageSize, recordCount % pageSize);
-            }
+    public static PagedResults<Document> getByNumberAfter(String number,
+                                                         Boolean searchRecord, Boolean searchContainer,
+                                                         String cursor, int pageSize,
+                                                         int userId, Projection projection) throws SQLException {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Results per page must be at least 1.");
         }
-        else if (searchRecord) {
-            recordCount = getRecordCountByNumber(number, userId);
-            documents = (List)RecordController.getRecordPageByNumber(number, userId, page, pageSize);
-        }
-        else { // only searchContainer
-            containerCount = ContainerController.getContainerCountByNumber(number, userId);
-            documents = (List)ContainerController.getContainerPageByNumber(number, userId, page, pageSize, 0);
+        if (!(searchRecord || searchContainer)) {
+            throw new IllegalArgumentException("Search must include at least one of the following: {record, container}.");
         }
 
-        documents = scrubDocuments(documents, userId);
+        SearchCursor after = SearchCursor.decode(cursor);
+        if (after != null && (after.getType() == SearchCursor.DocumentType.CONTAINER ? !searchContainer : !searchRecord)) {
+            throw new IllegalArgumentException("Search cursor does not match the document types searched.");
+        }
 
-        return new PagedResults<>(page, (recordCount + containerCount + pageSize - 1) / pageSize, documents);
+        PagedResults<Document> results = SearchController.searchByNumberAfter(number, searchRecord, searchContainer,
+                after, pageSize, userId, projection);
+        scrubDocuments(results.getResults(), userId);
+        return results;
     }
 
     /**
@@ -148,25 +104,30 @@ public class RecordController {
      *
      * @return a list of records, currently limit 20 order by UpdatedAt
      */
-    private static final String GET_ALL_RECORDS = "SELECT * " +
+    private static final String GET_ALL_RECORDS = "SELECT %s " +
             "FROM records  " +
             "WHERE LocationId IN ( SELECT LocationId  " +
             "FROM locations l  LEFT JOIN userlocations ul ON (ul.LocationId = l.Id ) " +
             "WHERE l.Restricted = false OR ul.UserId = ?) " +
             "ORDER BY UpdatedAt LIMIT 20";
     public static List<Record> getAllRecords(int userId) throws SQLException {
+        return getAllRecords(userId, Projection.ALL);
+    }
+
+    public static List<Record> getAllRecords(int userId, Projection projection) throws SQLException {
+        Set<String> columns = selectColumns(projection);
         List<Record> records = new ArrayList<>();
         try (Connection connection = DbConnect.getConnection();
-             PreparedStatement ps = connection.prepareStatement(GET_ALL_RECORDS)) {
+             PreparedStatement ps = connection.prepareStatement(
+                     String.format(GET_ALL_RECORDS, String.join(", ", columns)))) {
             ps.setInt(1, userId);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    Record record = parseResultSet(rs);
-                    loadRecordDetail(record);
-                    records.add(record);
+                    records.add(parseResultSet(rs, columns));
                 }
             }
         }
+        loadRecordDetails(records, projection, projection.expands(Projection.NOTES));
         return records;
     }
 
@@ -178,18 +139,30 @@ public class RecordController {
      * @return a single record
      */
     private static final String GET_RECORD_BY_ID =
-            "SELECT * " +
+            "SELECT %s " +
             "FROM records WHERE Id = ?";
     public static Record getRecordById(Integer id, int userId) throws SQLException {
+        return getRecordById(id, userId, Projection.ALL);
+    }
+
+    /**
+     * Retrieve a record with only the fields asked for. A single record carries its notes unless fields leaves
+     * them out.
+     */
+    public static Record getRecordById(Integer id, int userId, Projection projection) throws SQLException {
+        Set<String> columns = selectColumns(projection);
         try (Connection connection = DbConnect.getConnection();
-             PreparedStatement ps = connection.prepareStatement(GET_RECORD_BY_ID)) {
+             PreparedStatement ps = connection.prepareStatement(
+                     String.format(GET_RECORD_BY_ID, String.join(", ", columns)))) {
             ps.setInt(1, id);
             try (ResultSet resultSet = ps.executeQuery()) {
                 if (resultSet.next()) {
-                    Record record = parseResultSet(resultSet);
-                    loadRecordDetail(record);
+                    Record record = parseResultSet(resultSet, columns);
+                    loadRecordDetails(Collections.singletonList(record), projection,
+                            projection.includes(Projection.NOTES));
                     if (!Authenticator.canUserViewLocation(userId, record.getLocationId())) {
-                        throw new AuthenticationException("User " + userId + " is not allowed to view records on location " + record.getLocation());
+                        throw new AuthenticationException("User " + userId + " is not allowed to view records on location " +
+                                LocationController.getLocationNameByLocationId(record.getLocationId()));
                     }
                     return record;
                 } else {
@@ -201,90 +174,222 @@ public class RecordController {
     }
 
     /**
-     * Retrieve multiple records
+     * Get the changes made to a record, newest first
+     *
+     * @param id
+     * @param userId
+     * @param cursor nextCursor of the previous page, or empty for the first page
+     * @param limit
+     * @return a page of changes
+     * @throws SQLException
+     */
+    public static CursorResults<HistoryEntry> getRecordHistory(Integer id, int userId, String cursor, int limit)
+            throws SQLException {
+        // Checks that the record exists and that the user may see it
+        getRecordById(id, userId, Projection.ID_ONLY);
+        return AuditLogger.getHistory(AuditLogger.Target.RECORD, id, cursor, limit);
+    }
+
+    /**
+     * Retrieve multiple records. Verbose records carry hasNotes and notesLength but not the notes themselves.
      *
      * @param ids
      * @param verbose
-     * @return List of records
+     * @return List of records, in the order of ids
      */
+    private static final String GET_RECORDS_BY_IDS = "SELECT %s FROM records WHERE Id IN (%%s)";
     public static List<Record> getRecordsByIds(List<Integer> ids, boolean verbose) throws SQLException {
+        if (!verbose) {
+            return getRecordsByIds(ids, Projection.ALL, false, false);
+        }
+        return getRecordsByIds(ids, Projection.ALL);
+    }
+
+    /**
+     * Retrieve multiple records with only the fields asked for. Notes are left out unless expanded.
+     */
+    public static List<Record> getRecordsByIds(List<Integer> ids, Projection projection) throws SQLException {
+        return getRecordsByIds(ids, projection, true, projection.expands(Projection.NOTES));
+    }
+
+    private static List<Record> getRecordsByIds(List<Integer> ids, Projection projection,
+                                                boolean verbose, boolean withNotes) throws SQLException {
         List<Record> records = new ArrayList<>();
 
         if (ids == null || ids.isEmpty()) {
             return records;
         }
 
-        String query = "SELECT * FROM records WHERE Id IN (";
+        Set<String> columns = selectColumns(projection);
+        records = MultiGet.getByIds(String.format(GET_RECORDS_BY_IDS, String.join(", ", columns)), "Id", ids,
+                rs -> parseResultSet(rs, columns));
 
-        String idStr = completeIdsInQuery(ids, query);
+        if (verbose) {
+            loadRecordDetails(records, projection, withNotes);
+        }
+        return records;
+    }
 
-        try (Connection connection = DbConnect.getConnection();
-             PreparedStatement ps = connection.prepareStatement(idStr)) {
-            try (ResultSet resultSet = ps.executeQuery()) {
-                while (resultSet.next()) {
-                    Record record = parseResultSet(resultSet);
-                    if (verbose) {
-                        loadRecordDetail(record);
-                    }
-                    records.add(record);
+    /**
+     * Load record details for a list of records using a fixed number of queries,
+     * regardless of how many records are in the list. Details that the projection leaves out are not loaded.
+     *
+     * @param records
+     * @param projection
+     * @param withNotes load the notes, otherwise only their length
+     * @throws SQLException
+     */
+    private static final String GET_CONTAINER_NUMBERS =
+            "SELECT Id, Number FROM containers " +
+            "WHERE Id IN (%s)";
+    private static final String GET_RECORDS_CLASSIFICATIONS =
+            "SELECT RecordId, ClassId " +
+            "FROM recordclassifications " +
+            "WHERE RecordId IN (%s) " +
+            "ORDER BY RecordId ASC, Ordinal ASC";
+    private static void loadRecordDetails(List<Record> records, Projection projection, boolean withNotes)
+            throws SQLException {
+        if (records.isEmpty()) {
+            return;
+        }
+        boolean withContainerNumbers = projection.includes("containerNumber");
+        boolean withClassifications = projection.includesAny("classifications", "classIds");
+        boolean withNotesLengths = !withNotes && projection.includesAny("hasNotes", "notesLength");
+
+        Map<Integer, List<Record>> recordsById = new LinkedHashMap<>();
+        Set<Integer> containerIds = new HashSet<>();
+        for (Record record : records) {
+            recordsById.computeIfAbsent(record.getId(), k -> new ArrayList<>()).add(record);
+            if (withContainerNumbers && record.getContainerId() > 0) {
+                containerIds.add(record.getContainerId());
+            }
+            if (withClassifications) {
+                record.setClassIds(new ArrayList<>());
+            }
+            setReferenceNames(record, projection);
+        }
+        Set<Integer> ids = recordsById.keySet();
+
+        // Load container numbers
+        if (!containerIds.isEmpty()) {
+            Map<Integer, String> containerNumbers = new HashMap<>();
+            MultiGet.forEachRow(GET_CONTAINER_NUMBERS, containerIds,
+                    rs -> containerNumbers.put(rs.getInt("Id"), rs.getString("Number")));
+            for (Record record : records) {
+                record.setContainerNumber(containerNumbers.get(record.getContainerId()));
+            }
+        }
+
+        // Load classification ids; names come from the classification index
+        if (withClassifications) {
+            MultiGet.forEachRow(GET_RECORDS_CLASSIFICATIONS, ids, rs -> {
+                for (Record record : recordsById.get(rs.getInt("RecordId"))) {
+                    record.getClassIds().add(rs.getInt("ClassId"));
                 }
+            });
+        }
+
+        // Load notes, or only their lengths for lists
+        Map<Integer, String> notes = withNotes ? NoteTableController.getRecordNotes(ids) : Collections.emptyMap();
+        Map<Integer, Integer> notesLengths = withNotesLengths ?
+                NoteTableController.getRecordNoteLengths(ids) : new HashMap<>();
+        notes.forEach((id, text) -> notesLengths.put(id, text.codePointCount(0, text.length())));
+
+        for (Map.Entry<Integer, List<Record>> entry : recordsById.entrySet()) {
+            String classificationString = withClassifications ?
+                    ClassificationController.buildClassificationPath(entry.getValue().get(0).getClassIds()) : null;
+            int notesLength = notesLengths.getOrDefault(entry.getKey(), 0);
+            for (Record record : entry.getValue()) {
+                record.setClassifications(classificationString);
+                record.setNotes(notes.get(entry.getKey()));
+                record.setHasNotes(notesLength > 0);
+                record.setNotesLength(notesLength);
             }
         }
+    }
 
-        return records;
+    /**
+     * Set location, type, state and retention schedule from the reference data cache
+     */
+    private static void setReferenceNames(Record record, Projection projection) throws SQLException {
+        if (projection.includes("location")) {
+            Location location = LocationController.findLocationById(record.getLocationId());
+            record.setLocation(location == null ? "" : location.getLocationName());
+        }
+        if (projection.includes("type")) {
+            record.setType(RecordTypeController.getTypeName(record.getTypeId()));
+        }
+        if (projection.includes("state")) {
+            record.setState(StateController.getStateName(record.getStateId()));
+        }
+        if (projection.includesAny("schedule", "scheduleYear")) {
+            RetentionSchedule schedule = RetentionScheduleController.findRetentionSchedule(record.getScheduleId());
+            record.setSchedule(schedule == null ? null : schedule.getName());
+            record.setScheduleYear(schedule == null ? 0 : schedule.getYears());
+        }
     }
 
     /**
-     * Load record details, including location, type, state, and retention schedule
-     *
-     * @param record
-     * @throws SQLException
+     * Columns of the records table behind each record field. Id and LocationId are always selected, since
+     * access to a record is decided by its location.
      */
-    private static void loadRecordDetail(Record record) throws SQLException {
-        record.setLocation(LocationController.getLocationNameByLocationId(record.getLocationId()));
-        record.setType(RecordTypeController.getTypeName(record.getTypeId()));
-        record.setState(StateController.getStateName(record.getStateId()));
-        record.setContainerNumber(getContainerNumber(record.getContainerId()));
-
-        try {
-            RetentionSchedule schedule = RetentionScheduleController.getRetentionSchedule(record.getScheduleId());
-            record.setSchedule(schedule.getName());
-            record.setScheduleYear(schedule.getYears());
-        } catch (Exception e) {}
-
-        // Load classifications
-        List<Integer> classIds = getRecordClassifications(record.getId());
-        record.setClassIds(classIds);
-        List<Classification> classifications = new ArrayList<>();
-        for (int classId : classIds) {
-            classifications.add(ClassificationController.findClassificationById(classId));
-        }
-        record.setClassifications(Classification.buildClassificationString(classifications));
-
-        // Load notes
-        record.setNotes(NoteTableController.getRecordNotes(record.getId()));
+    private static final Map<String, String> COLUMNS_BY_FIELD = new HashMap<>();
+    static {
+        COLUMNS_BY_FIELD.put("title", "Title");
+        COLUMNS_BY_FIELD.put("number", "Number");
+        COLUMNS_BY_FIELD.put("scheduleId", "ScheduleId");
+        COLUMNS_BY_FIELD.put("schedule", "ScheduleId");
+        COLUMNS_BY_FIELD.put("scheduleYear", "ScheduleId");
+        COLUMNS_BY_FIELD.put("typeId", "TypeId");
+        COLUMNS_BY_FIELD.put("type", "TypeId");
+        COLUMNS_BY_FIELD.put("consignmentCode", "ConsignmentCode");
+        COLUMNS_BY_FIELD.put("stateId", "StateId");
+        COLUMNS_BY_FIELD.put("state", "StateId");
+        COLUMNS_BY_FIELD.put("containerId", "ContainerId");
+        COLUMNS_BY_FIELD.put("containerNumber", "ContainerId");
+        COLUMNS_BY_FIELD.put("createdAt", "CreatedAt");
+        COLUMNS_BY_FIELD.put("updatedAt", "UpdatedAt");
+        COLUMNS_BY_FIELD.put("closedAt", "ClosedAt");
+    }
+    private static final Set<String> ALL_COLUMNS = new LinkedHashSet<>(Arrays.asList("Id", "Title", "Number",
+            "ScheduleId", "TypeId", "ConsignmentCode", "StateId", "ContainerId", "LocationId",
+            "CreatedAt", "UpdatedAt", "ClosedAt"));
+
+    private static Set<String> selectColumns(Projection projection, String... required) {
+        if (projection == Projection.ALL) {
+            return ALL_COLUMNS;
+        }
+        Set<String> columns = new LinkedHashSet<>(Arrays.asList("Id", "LocationId"));
+        columns.addAll(Arrays.asList(required));
+        COLUMNS_BY_FIELD.forEach((field, column) -> {
+            if (projection.includes(field)) {
+                columns.add(column);
+            }
+        });
+        return columns;
     }
 
     /**
      * Parse result set from record table
      *
      * @param resultSet
+     * @param columns the columns that were selected; the others are left empty
      * @return
      * @throws SQLException
      */
-    private static Record parseResultSet(ResultSet resultSet) throws SQLException {
+    private static Record parseResultSet(ResultSet resultSet, Set<String> columns) throws SQLException {
         int id = resultSet.getInt("Id");
-        String title = resultSet.getString("Title");
-        String number = resultSet.getString("Number");
-        int scheduleId = resultSet.getInt("ScheduleId");
-        int typeId = resultSet.getInt("TypeId");
-        String consignmentCode = resultSet.getString("ConsignmentCode");
-        int stateId = resultSet.getInt("StateId");
-        int containerId = resultSet.getInt("ContainerId");
+        String title = columns.contains("Title") ? resultSet.getString("Title") : null;
+        String number = columns.contains("Number") ? resultSet.getString("Number") : null;
+        int scheduleId = columns.contains("ScheduleId") ? resultSet.getInt("ScheduleId") : 0;
+        int typeId = columns.contains("TypeId") ? resultSet.getInt("TypeId") : 0;
+        String consignmentCode = columns.contains("ConsignmentCode") ? resultSet.getString("ConsignmentCode") : null;
+        int stateId = columns.contains("StateId") ? resultSet.getInt("StateId") : 0;
+        int containerId = columns.contains("ContainerId") ? resultSet.getInt("ContainerId") : 0;
         int locationId = resultSet.getInt("LocationId");
-        Date createdAt = resultSet.getDate("CreatedAt");
-        Date updatedAt = resultSet.getDate("UpdatedAt");
-        Date closedAt = resultSet.getDate("ClosedAt");
+        Date createdAt = columns.contains("CreatedAt") ? resultSet.getDate("CreatedAt") : null;
+        Date updatedAt = columns.contains("UpdatedAt") ? resultSet.getDate("UpdatedAt") : null;
+        Date closedAt = columns.contains("ClosedAt") ? resultSet.getDate("ClosedAt") : null;
         return new Record(id,
                 title,
                 number,
@@ -300,74 +405,154 @@ public class RecordController {
     }
 
     /**
-     * Join records table with containers table to get container name
+     * Create a record
      *
-     * @param resultSet
-     * @return container name
+     * @param record
+     * @param userId
+     * @return
      */
-    private static final String GET_CONTAINER_NAME = "SELECT Number " +
-            "FROM containers " +
-            "WHERE Id = ?";
+    public static Record createRecord (Record record, int userId) throws SQLException {
 
-    private static String getContainerNumber(int containerId) throws SQLException {
-        try (Connection con = DbConnect.getConnection();
-             PreparedStatement ps = con.prepareStatement(GET_CONTAINER_NAME)) {
-            ps.setInt(1, containerId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getString("Number");
-                }
+        if (!Authenticator.authenticate(userId, Role.ADMINISTRATOR) && !Authenticator.authenticate(userId, Role.RMC)) {
+            throw new AuthenticationException(String.format("You do not have permission to create records."));
+        }
+
+        RecordNumber.NUMBER_PATTERN numberPattern = validateNewRecord(record, userId);
+
+        LOGGER.info("Passed all validation checks. Creating record {}", record);
+
+        record.setStateId(RecordState.ACTIVE.getId());
+
+        int newRecordId = UnitOfWork.inTransaction(() -> {
+            Map<Integer, String> numberErrors = fillGeneratedNumbers(Collections.singletonList(record),
+                    Collections.singletonList(numberPattern));
+            if (!numberErrors.isEmpty()) {
+                throw new ValidationException(numberErrors.get(0));
             }
+            return saveRecordToDb(record);
+        });
+        if (newRecordId < 0) {
+            return null;
         }
-        return null;
+        LOGGER.info("Created record. Record Id {}", newRecordId);
+        AuditLogger.log(userId, AuditLogger.Target.RECORD, newRecordId, AuditLogger.ACTION.CREATE);
+        return getRecordById(newRecordId, userId);
     }
 
     /**
-     * Get ordered list of classifications Ids for a record
+     * Create many records at once. Each record is validated on its own; the valid ones are inserted together
+     * in one transaction, with their classifications and notes, using batched statements.
      *
-     * @param recordId
-     * @return
+     * @param records
+     * @param userId
+     * @return the outcome of each record, in the order given
      * @throws SQLException
      */
-    private static final String GET_RECORD_CLASS_IDS =
-            "SELECT ClassId " +
-                    "FROM recordclassifications " +
-                    "WHERE RecordId=? ORDER BY Ordinal ASC";
+    public static BatchResponse createRecords(List<Record> records, int userId) throws SQLException {
+        BatchResponse response = new BatchResponse();
+        if (records.isEmpty()) {
+            LOGGER.info("No records found in create records request. Returning empty response");
+            return response;
+        }
 
-    private static List<Integer> getRecordClassifications(int recordId) throws SQLException {
-        List<Integer> classIds = new ArrayList<>();
-        try (Connection conn = DbConnect.getConnection();
-             PreparedStatement ps = conn.prepareStatement(GET_RECORD_CLASS_IDS)) {
-            ps.setInt(1, recordId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    classIds.add(rs.getInt("ClassId"));
-                }
+        if (!Authenticator.authenticate(userId, Role.ADMINISTRATOR) && !Authenticator.authenticate(userId, Role.RMC)) {
+            throw new AuthenticationException(String.format("You do not have permission to create records."));
+        }
+
+        // Validation reads the cached principal and reference data; numbers are then generated per prefix,
+        // one sequence reservation for all the records sharing it
+        String[] errors = new String[records.size()];
+        List<Integer> validPositions = new ArrayList<>();
+        List<RecordNumber.NUMBER_PATTERN> numberPatterns = new ArrayList<>();
+        for (int i = 0; i < records.size(); i++) {
+            Record record = records.get(i);
+            try {
+                numberPatterns.add(validateNewRecord(record, userId));
+                record.setStateId(RecordState.ACTIVE.getId());
+                validPositions.add(i);
+            } catch (IllegalArgumentException | AuthenticationException | ValidationException e) {
+                LOGGER.info("Record {} failed validation: {}", record.getNumber(), e.getMessage());
+                errors[i] = e.getMessage();
+            }
+        }
+
+        List<Record> numberedRecords = new ArrayList<>();
+        for (int position : validPositions) {
+            numberedRecords.add(records.get(position));
+        }
+
+        List<Integer> newRecordIds = new ArrayList<>();
+        String saveError = null;
+        if (!numberedRecords.isEmpty()) {
+            try {
+                // Numbers are generated in the transaction, so they are given back if the records are not saved
+                newRecordIds = UnitOfWork.inTransaction(() -> {
+                    Map<Integer, String> numberErrors = fillGeneratedNumbers(numberedRecords, numberPatterns);
+                    List<Record> validRecords = new ArrayList<>();
+                    Set<String> numbers = new HashSet<>();
+                    for (int i = 0; i < validPositions.size(); i++) {
+                        Record record = numberedRecords.get(i);
+                        if (numberErrors.containsKey(i)) {
+                            errors[validPositions.get(i)] = numberErrors.get(i);
+                        } else if (!numbers.add(record.getNumber().toUpperCase())) {
+                            errors[validPositions.get(i)] = String.format("Record number %s is used more than once.", record.getNumber());
+                        } else {
+                            validRecords.add(record);
+                        }
+                    }
+                    if (validRecords.isEmpty()) {
+                        return new ArrayList<Integer>();
+                    }
+                    LOGGER.info("Passed all validation checks. Creating {} records", validRecords.size());
+                    return saveRecordsToDb(validRecords);
+                });
+            } catch (SQLException e) {
+                LOGGER.error("Failed to create records", e);
+                saveError = e.getMessage();
             }
         }
-        return classIds;
+
+        int saved = 0;
+        for (int i = 0; i < records.size(); i++) {
+            Record record = records.get(i);
+            if (errors[i] != null) {
+                response.addResponse(0, record.getNumber(), errors[i], false);
+            } else if (saveError != null) {
+                response.addResponse(0, record.getNumber(), saveError, false);
+            } else {
+                int newRecordId = newRecordIds.get(saved++);
+                AuditLogger.log(userId, AuditLogger.Target.RECORD, newRecordId, AuditLogger.ACTION.CREATE);
+                response.addResponse(newRecordId, record.getNumber(), "", true);
+            }
+        }
+        LOGGER.info("Created records. Record Ids {}", newRecordIds);
+        return response;
     }
 
     /**
-     * Create a record
+     * Check that the user may create the record and that its number and classifications are valid
      *
      * @param record
      * @param userId
-     * @return
+     * @return the number pattern of the record's type
+     * @throws SQLException
      */
-    public static Record createRecord (Record record, int userId) throws SQLException {
-
-        if (!Authenticator.authenticate(userId, Role.ADMINISTRATOR) && !Authenticator.authenticate(userId, Role.RMC)) {
-            throw new AuthenticationException(String.format("You do not have permission to create records."));
+    private static RecordNumber.NUMBER_PATTERN validateNewRecord(Record record, int userId) throws SQLException {
+        if (LocationController.findLocationById(record.getLocationId()) == null) {
+            throw new IllegalArgumentException(String.format("Location %d does not exist.", record.getLocationId()));
         }
-
         if (!Authenticator.isUserAuthenticatedForLocation(userId, record.getLocationId())) {
             throw new AuthenticationException(String.format("You do not have permission to create records in %s.",
                     LocationController.getLocationNameByLocationId(record.getLocationId())));
         }
 
-
         String pattern = RecordTypeController.getNumberPattern(record.getTypeId());
+        if (pattern == null) {
+            throw new IllegalArgumentException(String.format("Record type %d does not exist.", record.getTypeId()));
+        }
+        if (record.getNumber() == null) {
+            throw new IllegalArgumentException("Record number is required.");
+        }
         RecordNumber.NUMBER_PATTERN numberPattern = RecordNumber.NUMBER_PATTERN.fromString(pattern);
         if (!numberPattern.match(record.getNumber()) ||
                 numberPattern.matchLocation(
@@ -377,24 +562,73 @@ public class RecordController {
                     record.getNumber(), record.getType()));
         }
 
-        record.setNumber(numberPattern.fillAutoGenField(record.getNumber()));
-        LOGGER.debug("Set recordNumber {}", record.getNumber());
-
         if (!record.validateClassifications()) {
             throw new IllegalArgumentException(String.format("Invalid classifications: %s", record.getClassifications()));
         }
+        return numberPattern;
+    }
 
-        LOGGER.info("Passed all validation checks. Creating record {}", record);
+    /**
+     * Fill in the generated "ggg" part of the records' numbers. The values come from a sequence per number prefix
+     * (e.g. "EDM-2018/"), and the records sharing a prefix get one range reserved for all of them. Only the values
+     * that fit in the field are reserved; the records past them are rejected. Called in the create transaction,
+     * so a create that fails gives its numbers back.
+     *
+     * @param records
+     * @param numberPatterns the number pattern of each record
+     * @return the error of each record that could not be numbered, by position
+     * @throws SQLException
+     */
+    private static Map<Integer, String> fillGeneratedNumbers(List<Record> records,
+                                                             List<RecordNumber.NUMBER_PATTERN> numberPatterns)
+            throws SQLException {
+        Map<String, List<Integer>> positionsByPrefix = new LinkedHashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            if (numberPatterns.get(i).hasAutoGenField()) {
+                String prefix = numberPatterns.get(i).getAutoGenPrefix(records.get(i).getNumber()).toUpperCase();
+                positionsByPrefix.computeIfAbsent(prefix, key -> new ArrayList<>()).add(i);
+            }
+        }
 
-        record.setStateId(RecordState.ACTIVE.getId());
+        Map<Integer, String> errors = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : positionsByPrefix.entrySet()) {
+            String prefix = entry.getKey();
+            List<Integer> positions = entry.getValue();
+            RecordNumber.NUMBER_PATTERN numberPattern = numberPatterns.get(positions.get(0));
+            int max = numberPattern.getMaxAutoGenValue();
+            int first = NumberSequence.reserve("RECORD:" + prefix, positions.size(), max,
+                    () -> getMaxGeneratedNumber(prefix, numberPattern.getAutoGenDigits()));
+            for (int i = 0; i < positions.size(); i++) {
+                Record record = records.get(positions.get(i));
+                if (first + i > max) {
+                    errors.put(positions.get(i), String.format("Could not generate a record number for %s. Max number of records reached.",
+                            record.getNumber()));
+                    continue;
+                }
+                record.setNumber(numberPattern.fillAutoGenField(record.getNumber(), first + i));
+                LOGGER.debug("Set recordNumber {}", record.getNumber());
+            }
+        }
+        return errors;
+    }
 
-        int newRecordId = saveRecordToDb(record);
-        if (newRecordId < 0) {
-            return null;
+    /**
+     * Only used to seed the sequence of a prefix the first time a record number is generated for it
+     */
+    private static final String GET_MAX_GENERATED_NUMBER =
+            "SELECT MAX(CAST(SUBSTRING(Number, ?) AS UNSIGNED)) AS MaxNumber " +
+            "FROM records " +
+            "WHERE Number LIKE ?";
+    private static int getMaxGeneratedNumber(String prefix, int digits) throws SQLException {
+        String escapedPrefix = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        try (Connection conn = DbConnect.getConnection();
+             PreparedStatement ps = conn.prepareStatement(GET_MAX_GENERATED_NUMBER)) {
+            ps.setInt(1, prefix.length() + 1);
+            ps.setString(2, escapedPrefix + String.join("", Collections.nCopies(digits, "_")));
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt("MaxNumber") : 0;
+            }
         }
-        LOGGER.info("Created record. Record Id {}", newRecordId);
-        AuditLogger.log(userId, AuditLogger.Target.RECORD, newRecordId, AuditLogger.ACTION.CREATE);
-        return getRecordById(newRecordId, userId);
     }
 
 
@@ -405,18 +639,7 @@ public class RecordController {
     private static int saveRecordToDb(Record record) throws SQLException {
         try (Connection conn = DbConnect.getConnection();
              PreparedStatement ps = conn.prepareStatement(CREATE_RECORD_SQL, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setString(1, record.getNumber());
-            ps.setString(2, record.getTitle());
-            ps.setInt(3, record.getScheduleId());
-            ps.setInt(4, record.getTypeId());
-            ps.setString(5, record.getConsignmentCode() == null ? "" : record.getConsignmentCode());
-            ps.setInt(6, record.getStateId());
-            if (record.getContainerId() <= 0) {
-                ps.setNull(7, java.sql.Types.INTEGER);
-            } else {
-                ps.setInt(7, record.getContainerId());
-            }
-            ps.setInt(8, record.getLocationId());
+            bindNewRecord(ps, record);
             ps.executeUpdate();
 
             int newRecordId = -1;
@@ -430,6 +653,7 @@ public class RecordController {
                 LOGGER.error("Failed to save new record to DB. Returning -1");
                 return -1;
             }
+            SearchIndex.recordSaved(newRecordId, record.getNumber());
             saveClassificationForRecord(newRecordId, record.getClassIds());
             if (!StringUtils.isEmpty(record.getNotes()) ) {
                 NoteTableController.saveNotesForRecord(newRecordId, record.getNotes());
@@ -438,6 +662,64 @@ public class RecordController {
         }
     }
 
+    /**
+     * Insert records with one batch for the records, one for their classifications and one for their notes
+     *
+     * @param records
+     * @return the ids of the new records, in the order given
+     * @throws SQLException
+     */
+    private static List<Integer> saveRecordsToDb(List<Record> records) throws SQLException {
+        List<Integer> newRecordIds = new ArrayList<>(records.size());
+        try (Connection conn = DbConnect.getConnection();
+             PreparedStatement ps = conn.prepareStatement(CREATE_RECORD_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (Record record : records) {
+                bindNewRecord(ps, record);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+                while (rs.next()) {
+                    newRecordIds.add(rs.getInt(1));
+                }
+            }
+        }
+        if (newRecordIds.size() != records.size()) {
+            throw new SQLException(String.format("Failed to save new records to DB. Expected %d ids, got %d.",
+                    records.size(), newRecordIds.size()));
+        }
+
+        Map<Integer, List<Integer>> classIdsByRecordId = new LinkedHashMap<>();
+        Map<Integer, String> notesByRecordId = new LinkedHashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            Record record = records.get(i);
+            int newRecordId = newRecordIds.get(i);
+            SearchIndex.recordSaved(newRecordId, record.getNumber());
+            classIdsByRecordId.put(newRecordId, record.getClassIds());
+            if (!StringUtils.isEmpty(record.getNotes())) {
+                notesByRecordId.put(newRecordId, record.getNotes());
+            }
+        }
+        saveClassificationsForRecords(classIdsByRecordId);
+        NoteTableController.saveNotesForRecords(notesByRecordId);
+        return newRecordIds;
+    }
+
+    private static void bindNewRecord(PreparedStatement ps, Record record) throws SQLException {
+        ps.setString(1, record.getNumber());
+        ps.setString(2, record.getTitle());
+        ps.setInt(3, record.getScheduleId());
+        ps.setInt(4, record.getTypeId());
+        ps.setString(5, record.getConsignmentCode() == null ? "" : record.getConsignmentCode());
+        ps.setInt(6, record.getStateId());
+        if (record.getContainerId() <= 0) {
+            ps.setNull(7, java.sql.Types.INTEGER);
+        } else {
+            ps.setInt(7, record.getContainerId());
+        }
+        ps.setInt(8, record.getLocationId());
+    }
+
     private static final String INSERT_RECORD_CLASSIFICATION =
             "INSERT INTO recordclassifications (RecordId, ClassId, Ordinal) " +
                     "VALUES (?, ?, ?)";
@@ -448,57 +730,46 @@ public class RecordController {
      * @throws SQLException
      */
     private static void saveClassificationForRecord(int recordId, List<Integer> classIds) throws SQLException {
+        saveClassificationsForRecords(Collections.singletonMap(recordId, classIds));
+    }
+
+    /**
+     * Insert the classifications of many records in one batch
+     *
+     * @param classIdsByRecordId
+     * @throws SQLException
+     */
+    private static void saveClassificationsForRecords(Map<Integer, List<Integer>> classIdsByRecordId) throws SQLException {
         try (Connection conn = DbConnect.getConnection();
              PreparedStatement ps = conn.prepareStatement(INSERT_RECORD_CLASSIFICATION)){
-            for (int i = 0; i < classIds.size(); i++) {
-                ps.setInt(1, recordId);
-                ps.setInt(2, classIds.get(i));
-                ps.setInt(3, i);
-                ps.addBatch();
+            for (Map.Entry<Integer, List<Integer>> entry : classIdsByRecordId.entrySet()) {
+                List<Integer> classIds = entry.getValue();
+                for (int i = 0; i < classIds.size(); i++) {
+                    ps.setInt(1, entry.getKey());
+                    ps.setInt(2, classIds.get(i));
+                    ps.setInt(3, i);
+                    ps.addBatch();
+                }
             }
             ps.executeBatch();
         }
-        LOGGER.info("Saved classifications {} for record {}", classIds, recordId);
+        LOGGER.info("Saved classifications for records {}", classIdsByRecordId.keySet());
     }
 
     /**
-     * Delete a record by Id
+     * Delete records by id. The records are read and authorized together, then deleted with their notes in one
+     * transaction with set-based statements; classifications are deleted because of the database constraint.
      *
-     * @param id
      * @param userId
-     * @return
+     * @param form
+     * @return the outcome for each id, in the order given
+     * @throws SQLException
      */
-    private static final String DELETE_RECORD_BY_ID = "DELETE FROM records " +
-            "where Id=?";
-
-    private static boolean deleteRecord(Record record, int userId) throws SQLException {
-        // TODO : audit log
-
-        if (!Authenticator.isUserAuthenticatedForLocation(userId, record.getLocationId())) {
-            throw new AuthenticationException(String.format("You do not have permission to delete records in %s.",
-                    record.getLocation()));
-        }
-
-        LOGGER.info("About to delete record {}", record.getId());
-
-        // 1. Delete from records
-        // 2. Classifications are deleted because of database constraint
-        int rowsModified;
-        try (Connection conn = DbConnect.getConnection();
-             PreparedStatement ps = conn.prepareStatement(DELETE_RECORD_BY_ID)) {
-            ps.setInt(1, record.getId());
-            rowsModified = ps.executeUpdate();
-        }
-
-        // 3. Delete notes
-        NoteTableController.deleteNotesForRecord(record.getId());
-
-        if (rowsModified == 1)
-            AuditLogger.log(userId, AuditLogger.Target.RECORD, record.getId(), AuditLogger.ACTION.DELETE);
-
-        return rowsModified == 1;
-    }
-
+    private static final String GET_RECORDS_TO_DELETE =
+            "SELECT Id, Number, LocationId " +
+            "FROM records WHERE Id IN (%s)";
+    private static final String DELETE_RECORDS = "DELETE FROM records " +
+            "WHERE Id IN (%s)";
     public static BatchResponse deleteRecords(int userId, RecordsForm form) throws SQLException {
         BatchResponse response = new BatchResponse();
 
@@ -511,14 +782,58 @@ public class RecordController {
             throw new AuthenticationException(String.format("You do not have permission to delete records."));
         }
 
+        Map<Integer, String> numbers = new HashMap<>();
+        Map<Integer, Integer> locationIds = new HashMap<>();
+        MultiGet.forEachRow(GET_RECORDS_TO_DELETE, form.getRecordIds(), rs -> {
+            numbers.put(rs.getInt("Id"), rs.getString("Number"));
+            locationIds.put(rs.getInt("Id"), rs.getInt("LocationId"));
+        });
+
+        Principal principal = Authenticator.getPrincipal(userId);
+        Map<Integer, String> errors = new HashMap<>();
+        List<Integer> idsToDelete = new ArrayList<>();
         for (int recordId : form.getRecordIds()) {
-            Record record = null;
+            Integer locationId = locationIds.get(recordId);
+            if (locationId == null) {
+                errors.put(recordId, String.format("Record %d does not exist.", recordId));
+            } else if (!principal.canView(locationId)) {
+                errors.put(recordId, "User " + userId + " is not allowed to view records on location " +
+                        LocationController.getLocationNameByLocationId(locationId));
+            } else if (!principal.isAssignedTo(locationId)) {
+                errors.put(recordId, String.format("You do not have permission to delete records in %s.",
+                        LocationController.getLocationNameByLocationId(locationId)));
+            } else {
+                idsToDelete.add(recordId);
+            }
+        }
+
+        String deleteError = null;
+        if (!idsToDelete.isEmpty()) {
+            LOGGER.info("About to delete records {}", idsToDelete);
             try {
-                record = getRecordById(recordId, userId);
-                response.addResponse(recordId, record.getNumber(), "", deleteRecord(record, userId));
-            } catch (Exception e) {
-                LOGGER.error(e.getMessage());
-                response.addResponse(recordId, record == null ? "" : record.getNumber(), e.getMessage(), false);
+                UnitOfWork.runInTransaction(() -> {
+                    int deleted = MultiGet.update(DELETE_RECORDS, idsToDelete);
+                    NoteTableController.deleteNotesForRecords(idsToDelete);
+                    LOGGER.info("Deleted {} records", deleted);
+                    for (int recordId : MultiGet.distinct(idsToDelete)) {
+                        SearchIndex.recordDeleted(recordId);
+                        AuditLogger.log(userId, AuditLogger.Target.RECORD, recordId, AuditLogger.ACTION.DELETE);
+                    }
+                });
+            } catch (SQLException e) {
+                LOGGER.error("Failed to delete records", e);
+                deleteError = e.getMessage();
+            }
+        }
+
+        for (int recordId : form.getRecordIds()) {
+            String number = numbers.getOrDefault(recordId, "");
+            String error = errors.containsKey(recordId) ? errors.get(recordId) : deleteError;
+            if (error != null) {
+                LOGGER.error(error);
+                response.addResponse(recordId, number, error, false);
+            } else {
+                response.addResponse(recordId, number, "", true);
             }
         }
         return response;
@@ -554,6 +869,31 @@ public class RecordController {
             throw new NoResultsFoundException(String.format("Record %s does not exist.", record.getNumber()));
         }
 
+        Container destinationContainer = updateForm.getContainerId() <= 0 ?
+                null : ContainerController.getContainerById(updateForm.getContainerId(), userId);
+        validateRecordUpdate(record, updateForm, destinationContainer, userId);
+
+        LOGGER.info("About to update record {}", id);
+        String closeStatus = getCloseStatus(record, updateForm.getStateId());
+
+        UnitOfWork.runInTransaction(() -> saveRecordUpdate(id, record, updateForm, destinationContainer, closeStatus, userId));
+
+        AuditLogger.log(userId, AuditLogger.Target.RECORD, id, AuditLogger.ACTION.UPDATE);
+    }
+
+    /**
+     * Check that the user may update the record and that the update is valid
+     *
+     * @param record the record as it is now
+     * @param updateForm
+     * @param destinationContainer the container the record goes in, or null
+     * @param userId
+     * @throws SQLException
+     */
+    private static void validateRecordUpdate(Record record,
+                                             UpdateRecordForm updateForm,
+                                             Container destinationContainer,
+                                             int userId) throws SQLException {
         if (!Authenticator.isUserAuthenticatedForLocation(userId, record.getLocationId())) {
             throw new AuthenticationException(String.format("You do not have permission to update records at %s.",
                     record.getLocation()));
@@ -572,8 +912,6 @@ public class RecordController {
         }
 
         // Validate container update
-        Container destinationContainer = updateForm.getContainerId() <= 0 ?
-                null : ContainerController.getContainerById(updateForm.getContainerId(), userId);
         if (destinationContainer != null && isContainerChanged(record, updateForm.getContainerId())) {
             ContainerController.validateContainerChangeForRecord(record, destinationContainer);
         }
@@ -593,43 +931,219 @@ public class RecordController {
                 }
             }
         }
+    }
 
-        LOGGER.info("About to update record {}", id);
-        String closeStatus = "";
+    /**
+     * Update many records at once. The records and the containers they move to are read in bulk and every
+     * update is validated on its own; the valid ones are written together in one transaction using batches.
+     *
+     * @param updateForms
+     * @param userId
+     * @return the outcome of each update, in the order given
+     * @throws SQLException
+     */
+    public static BatchResponse updateRecords(List<BatchUpdateRecordForm> updateForms, int userId) throws SQLException {
+        BatchResponse response = new BatchResponse();
+        if (updateForms.isEmpty()) {
+            LOGGER.info("No updates found in update records request. Returning empty response");
+            return response;
+        }
 
-        // Determine new close status
-        // Update to opened
-        if (updateForm.getStateId() == RecordState.ACTIVE.getId() ||
-            updateForm.getStateId() == RecordState.INACTIVE.getId()) {
-            closeStatus = "open";
-        } else { // Update to closed
-            // Not closed, close it now
-            if (record.getStateId() == RecordState.ACTIVE.getId() ||
-                record.getStateId() == RecordState.INACTIVE.getId()) {
-                closeStatus = "close";
+        if (!Authenticator.authenticate(userId, Role.ADMINISTRATOR) && !Authenticator.authenticate(userId, Role.RMC)) {
+            throw new AuthenticationException(String.format("You do not have permission to update records."));
+        }
+
+        List<Integer> recordIds = new ArrayList<>();
+        Set<Integer> containerIds = new HashSet<>();
+        for (BatchUpdateRecordForm updateForm : updateForms) {
+            recordIds.add(updateForm.getId());
+            if (updateForm.getContainerId() > 0) {
+                containerIds.add(updateForm.getContainerId());
             }
-            // Already closed, stay closed
+        }
+        Map<Integer, Record> records = new HashMap<>();
+        // With notes, to tell which updates change them
+        for (Record record : getRecordsByIds(recordIds, Projection.ALL, true, true)) {
+            records.put(record.getId(), record);
+        }
+        Map<Integer, Container> containers = new HashMap<>();
+        for (Container container : ContainerController.getContainersByIds(new ArrayList<>(containerIds))) {
+            containers.put(container.getContainerId(), container);
         }
 
-        try (Connection conn = DbConnect.getConnection();
-             PreparedStatement ps = conn.prepareStatement(UPDATE_RECORD)) {
-            ps.setString(1, updateForm.getTitle());
-            if (updateForm.getScheduleId() <= 0) {
-                ps.setNull(2, Types.INTEGER);
-            } else {
-                ps.setInt(2, updateForm.getScheduleId());
+        String[] errors = new String[updateForms.size()];
+        List<BatchUpdateRecordForm> validForms = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        // The first record moved into each empty container sets its record type and schedule
+        Map<Integer, Record> firstRecordInContainer = new HashMap<>();
+        for (int i = 0; i < updateForms.size(); i++) {
+            BatchUpdateRecordForm updateForm = updateForms.get(i);
+            try {
+                Record record = records.get(updateForm.getId());
+                if (record == null) {
+                    throw new NoResultsFoundException(String.format("Record %d does not exist.", updateForm.getId()));
+                }
+                if (!seen.add(record.getId())) {
+                    throw new IllegalArgumentException(String.format("Record %s is updated more than once.", record.getNumber()));
+                }
+                Container destinationContainer = getDestinationContainer(updateForm, containers, userId);
+                validateRecordUpdate(record, updateForm, destinationContainer, userId);
+                if (destinationContainer != null && isContainerChanged(record, updateForm.getContainerId())
+                        && destinationContainer.getChildRecordIds().isEmpty()) {
+                    Record first = firstRecordInContainer.putIfAbsent(destinationContainer.getContainerId(), record);
+                    if (first != null && (first.getTypeId() != record.getTypeId() || first.getScheduleId() != record.getScheduleId())) {
+                        throw new ValidationException(String.format(
+                                "Record '%s' does not have the same record type and schedule as record '%s' added to the same container.",
+                                record.getNumber(), first.getNumber()));
+                    }
+                }
+                validForms.add(updateForm);
+            } catch (IllegalArgumentException | AuthenticationException | ValidationException | NoResultsFoundException e) {
+                LOGGER.info("Update of record {} failed validation: {}", updateForm.getId(), e.getMessage());
+                errors[i] = e.getMessage();
             }
-            ps.setInt(3, updateForm.getStateId());
-            ps.setString(4, updateForm.getConsignmentCode() == null ? "" : updateForm.getConsignmentCode());
-            if (updateForm.getContainerId() <= 0) {
-                ps.setNull(5, Types.INTEGER);
+        }
+
+        String saveError = null;
+        if (!validForms.isEmpty()) {
+            LOGGER.info("Passed all validation checks. Updating {} records", validForms.size());
+            try {
+                UnitOfWork.runInTransaction(() -> saveRecordUpdates(validForms, records, containers, firstRecordInContainer));
+            } catch (SQLException e) {
+                LOGGER.error("Failed to update records", e);
+                saveError = e.getMessage();
+            }
+        }
+
+        for (int i = 0; i < updateForms.size(); i++) {
+            BatchUpdateRecordForm updateForm = updateForms.get(i);
+            Record record = records.get(updateForm.getId());
+            String number = record == null ? "" : record.getNumber();
+            if (errors[i] != null) {
+                response.addResponse(updateForm.getId(), number, errors[i], false);
+            } else if (saveError != null) {
+                response.addResponse(updateForm.getId(), number, saveError, false);
             } else {
-                ps.setInt(5, updateForm.getContainerId());
+                AuditLogger.log(userId, AuditLogger.Target.RECORD, updateForm.getId(), AuditLogger.ACTION.UPDATE);
+                response.addResponse(updateForm.getId(), number, "", true);
+            }
+        }
+        return response;
+    }
+
+    private static Container getDestinationContainer(UpdateRecordForm updateForm,
+                                                     Map<Integer, Container> containers,
+                                                     int userId) throws SQLException {
+        if (updateForm.getContainerId() <= 0) {
+            return null;
+        }
+        Container container = containers.get(updateForm.getContainerId());
+        if (container == null) {
+            throw new NoResultsFoundException(String.format("Container %d does not exist.", updateForm.getContainerId()));
+        }
+        if (!Authenticator.canUserViewLocation(userId, container.getLocationId())) {
+            throw new AuthenticationException(String.format("You do not have permission to view containers at %s. ",
+                    container.getLocationName()));
+        }
+        return container;
+    }
+
+    /**
+     * Write validated record updates with one batch per kind of change
+     *
+     * @param updateForms
+     * @param records the records as they were before the update, by id
+     * @param containers the destination containers, by id
+     * @param firstRecordInContainer the record that sets the record information of each empty destination container
+     * @throws SQLException
+     */
+    private static void saveRecordUpdates(List<BatchUpdateRecordForm> updateForms,
+                                          Map<Integer, Record> records,
+                                          Map<Integer, Container> containers,
+                                          Map<Integer, Record> firstRecordInContainer) throws SQLException {
+        Map<Integer, List<Integer>> newClassifications = new LinkedHashMap<>();
+        List<Integer> clearedNotes = new ArrayList<>();
+        Map<Integer, String> newNotes = new LinkedHashMap<>();
+        Map<Integer, Integer> movedRecords = new LinkedHashMap<>();
+        Set<Integer> emptiedContainers = new HashSet<>();
+
+        try (Connection conn = DbConnect.getConnection();
+             PreparedStatement ps = conn.prepareStatement(UPDATE_RECORD)) {
+            for (BatchUpdateRecordForm updateForm : updateForms) {
+                int id = updateForm.getId();
+                Record record = records.get(id);
+                String closeStatus = getCloseStatus(record, updateForm.getStateId());
+                bindRecordUpdate(ps, id, updateForm, closeStatus);
+                ps.addBatch();
+
+                if (!updateForm.getClassifications().equals(record.getClassifications())) {
+                    newClassifications.put(id, updateForm.getClassifications());
+                }
+                if (StringUtils.isEmpty(updateForm.getNotes())) {
+                    clearedNotes.add(id);
+                } else if (!updateForm.getNotes().equals(record.getNotes())) {
+                    clearedNotes.add(id);
+                    newNotes.put(id, updateForm.getNotes());
+                }
+                if (isContainerChanged(record, updateForm.getContainerId())) {
+                    if (updateForm.getContainerId() > 0) {
+                        movedRecords.put(id, updateForm.getContainerId());
+                    } else {
+                        emptiedContainers.add(record.getContainerId());
+                    }
+                }
             }
-            ps.setString(6, closeStatus);
-            ps.setString(7, closeStatus);
+            ps.executeBatch();
+        }
 
-            ps.setInt(8, id);
+        MultiGet.update(DELETE_CLASSIFICATIONS_FOR_RECORDS, newClassifications.keySet());
+        saveClassificationsForRecords(newClassifications);
+
+        NoteTableController.deleteNotesForRecords(clearedNotes);
+        NoteTableController.saveNotesForRecords(newNotes);
+
+        for (Map.Entry<Integer, Record> first : firstRecordInContainer.entrySet()) {
+            ContainerController.updateContainerRecordInformation(containers.get(first.getKey()), first.getValue());
+        }
+        setRecordContainers(movedRecords);
+        ContainerController.clearRecordInformationOfEmptyContainers(emptiedContainers);
+    }
+
+    /**
+     * Determine how the ClosedAt date changes when a record moves to a new state
+     *
+     * @param record
+     * @param newStateId
+     * @return "open", "close", or "" if it stays as is
+     */
+    private static String getCloseStatus(Record record, int newStateId) {
+        // Update to opened
+        if (newStateId == RecordState.ACTIVE.getId() ||
+            newStateId == RecordState.INACTIVE.getId()) {
+            return "open";
+        }
+        // Update to closed
+        // Not closed, close it now
+        if (record.getStateId() == RecordState.ACTIVE.getId() ||
+            record.getStateId() == RecordState.INACTIVE.getId()) {
+            return "close";
+        }
+        // Already closed, stay closed
+        return "";
+    }
+
+    /**
+     * Write a validated record update: the record row, classifications, notes and container information
+     */
+    private static void saveRecordUpdate(Integer id,
+                                         Record record,
+                                         UpdateRecordForm updateForm,
+                                         Container destinationContainer,
+                                         String closeStatus,
+                                         int userId) throws SQLException {
+        try (Connection conn = DbConnect.getConnection();
+             PreparedStatement ps = conn.prepareStatement(UPDATE_RECORD)) {
+            bindRecordUpdate(ps, id, updateForm, closeStatus);
             ps.executeUpdate();
         }
 
@@ -654,8 +1168,27 @@ public class RecordController {
                 ContainerController.clearContainerRecordInformation(record.getContainerId());
             }
         }
+    }
 
-        AuditLogger.log(userId, AuditLogger.Target.RECORD, id, AuditLogger.ACTION.UPDATE);
+    private static void bindRecordUpdate(PreparedStatement ps, int id, UpdateRecordForm updateForm, String closeStatus)
+            throws SQLException {
+        ps.setString(1, updateForm.getTitle());
+        if (updateForm.getScheduleId() <= 0) {
+            ps.setNull(2, Types.INTEGER);
+        } else {
+            ps.setInt(2, updateForm.getScheduleId());
+        }
+        ps.setInt(3, updateForm.getStateId());
+        ps.setString(4, updateForm.getConsignmentCode() == null ? "" : updateForm.getConsignmentCode());
+        if (updateForm.getContainerId() <= 0) {
+            ps.setNull(5, Types.INTEGER);
+        } else {
+            ps.setInt(5, updateForm.getContainerId());
+        }
+        ps.setString(6, closeStatus);
+        ps.setString(7, closeStatus);
+
+        ps.setInt(8, id);
     }
 
     private static boolean isContainerChanged(Record record, int containerId) {
@@ -672,12 +1205,28 @@ public class RecordController {
             "WHERE R.Id = ?";
 
     public static void setRecordContainer(int recordId, int containerId) throws SQLException {
+        setRecordContainers(Collections.singletonMap(recordId, containerId));
+    }
+
+    /**
+     * Move many records into containers in one batch
+     *
+     * @param containerIdsByRecordId
+     * @throws SQLException
+     */
+    private static void setRecordContainers(Map<Integer, Integer> containerIdsByRecordId) throws SQLException {
+        if (containerIdsByRecordId.isEmpty()) {
+            return;
+        }
         try (Connection conn = DbConnect.getConnection();
              PreparedStatement ps = conn.prepareStatement(SET_RECORD_CONTAINER)) {
-            ps.setInt(1, containerId);
-            ps.setInt(2, containerId);
-            ps.setInt(3, recordId);
-            ps.executeUpdate();
+            for (Map.Entry<Integer, Integer> entry : containerIdsByRecordId.entrySet()) {
+                ps.setInt(1, entry.getValue());
+                ps.setInt(2, entry.getValue());
+                ps.setInt(3, entry.getKey());
+                ps.addBatch();
+            }
+            ps.executeBatch();
         }
     }
 
@@ -731,57 +1280,170 @@ public class RecordController {
         }
     }
 
+    private static final String DELETE_CLASSIFICATIONS_FOR_RECORDS = "DELETE " +
+            "FROM recordclassifications " +
+            "WHERE RecordId IN (%s)";
+
     /**
      * Find all volumes related to a record Number
      *
      * @param String recordNumber
      * @throws SQLException
      */
-    private static final String FIND_VOLUMES_BY_NUMBER =
-            "SELECT * " +
-            "FROM records " +
-            "WHERE LocationId IN " +
-                "(SELECT LocationId  " +
-                "FROM locations l  LEFT JOIN userlocations ul ON (ul.LocationId = l.Id ) " +
-                "WHERE l.Restricted = false OR ul.UserId = ?) " +
-            "AND (Number LIKE BINARY ? " +
-            "OR Number LIKE BINARY ?)";
     public static List<Record> getVolumesByNumber(String recordNumber, int userId) throws SQLException {
+        return getVolumesByNumber(recordNumber, userId, Projection.ALL);
+    }
+
+    public static List<Record> getVolumesByNumber(String recordNumber, int userId, Projection projection)
+            throws SQLException {
+        return getRecordsByIds(getVisibleVolumeIds(recordNumber, userId), projection);
+    }
+
+    /**
+     * Find one page of the volumes related to a record Number, in volume order
+     *
+     * @param recordNumber
+     * @param page
+     * @param pageSize
+     * @param userId
+     * @return
+     * @throws SQLException
+     */
+    public static PagedResults<Record> getVolumesByNumber(String recordNumber, int page, int pageSize, int userId)
+            throws SQLException {
+        return getVolumesByNumber(recordNumber, page, pageSize, userId, Projection.ALL);
+    }
+
+    public static PagedResults<Record> getVolumesByNumber(String recordNumber, int page, int pageSize, int userId,
+                                                          Projection projection) throws SQLException {
+        if (page < 1 || pageSize < 1) {
+            throw new IllegalArgumentException("Page number and results per page must be at least 1.");
+        }
+        List<Integer> volumeIds = getVisibleVolumeIds(recordNumber, userId);
+        int from = (int) Math.min((long) (page - 1) * pageSize, volumeIds.size());
+        int to = Math.min(from + pageSize, volumeIds.size());
+        List<Record> records = getRecordsByIds(volumeIds.subList(from, to), projection);
+        return new PagedResults<>(page, (volumeIds.size() + pageSize - 1) / pageSize, records);
+    }
+
+    /**
+     * Get the ids of the volumes the user may see, with a range read of the (BaseNumber, Volume) index
+     */
+    private static final String GET_VOLUME_IDS =
+            "SELECT Id, LocationId " +
+            "FROM records " +
+            "WHERE BaseNumber = ? " +
+            "ORDER BY Volume ASC, Id ASC";
+    private static List<Integer> getVisibleVolumeIds(String recordNumber, int userId) throws SQLException {
         int colonIndex = recordNumber.indexOf(":");
         if (colonIndex != -1)
             recordNumber = recordNumber.substring(0, colonIndex);
 
-        List<Record> records = new ArrayList<>();
-
+        Principal principal = Authenticator.getPrincipal(userId);
+        List<Integer> volumeIds = new ArrayList<>();
         try (Connection conn = DbConnect.getConnection();
-             PreparedStatement ps = conn.prepareStatement(FIND_VOLUMES_BY_NUMBER)){
-            ps.setInt(1, userId);
-            ps.setString(2, recordNumber);
-            ps.setString(3, recordNumber + ":%");
+             PreparedStatement ps = conn.prepareStatement(GET_VOLUME_IDS)){
+            ps.setString(1, recordNumber);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    Record record = parseResultSet(rs);
-                    loadRecordDetail(record);
-                    records.add(record);
+                    if (principal.canView(rs.getInt("LocationId"))) {
+                        volumeIds.add(rs.getInt("Id"));
+                    }
                 }
             }
         }
-        return records;
+        return volumeIds;
     }
 
-    private static List<Document> scrubDocuments(List<Document> documentList, int userId) throws SQLException {
-        List<Location> locations = LocationController.getUserLocations(userId);
-        List<Integer> locationIds = locations.stream()
-                .map(elt -> elt.getLocationId())
-                .collect(Collectors.toList());
-        documentList.forEach(new Consumer<Document>() {
-            public void accept(Document document) {
-                if (!locationIds.contains(document.getLocationId())) {
-                    document.setConsignmentCode("***");
+    /**
+     * Write records as a JSON array while they are read, without collecting them first. The driver streams the
+     * rows, and each row carries its container number, classification ids and notes length, so memory use
+     * stays the same however many records there are. Notes are not included.
+     *
+     * @param ids
+     * @param generator
+     * @throws SQLException
+     * @throws IOException
+     */
+    private static final String STREAM_RECORDS =
+            "SELECT r.Id, r.Title, r.Number, r.ScheduleId, r.TypeId, r.ConsignmentCode, r.StateId, r.ContainerId, " +
+            "r.LocationId, r.CreatedAt, r.UpdatedAt, r.ClosedAt, c.Number AS ContainerNumber, " +
+            "(SELECT GROUP_CONCAT(rc.ClassId ORDER BY rc.Ordinal ASC) FROM recordclassifications rc " +
+                "WHERE rc.RecordId = r.Id) AS ClassIds, " +
+            "(SELECT SUM(COALESCE(n.Length, CHAR_LENGTH(n.Text))) FROM notes n " +
+                "WHERE n.TableId = ? AND n.RowId = r.Id) AS NotesLength " +
+            "FROM records r LEFT JOIN containers c ON (c.Id = r.ContainerId) ";
+    private static final String STREAM_RECORDS_BY_IDS = STREAM_RECORDS +
+            "WHERE r.Id IN (%1$s) " +
+            "ORDER BY FIELD(r.Id, %1$s)";
+    public static void writeRecordsByIds(List<Integer> ids, JsonGenerator generator) throws SQLException, IOException {
+        generator.writeStartArray();
+        MultiGet.streamRows(STREAM_RECORDS_BY_IDS,
+                ps -> {
+                    ps.setInt(1, NoteTable.RECORDS.id);
+                    return 2;
+                },
+                ids,
+                rs -> generator.writeObject(parseStreamedRecord(rs)));
+        generator.writeEndArray();
+        generator.flush();
+    }
+
+    /**
+     * Write the volumes related to a record Number that the user may see as a JSON array, in volume order,
+     * streaming them like writeRecordsByIds
+     *
+     * @param recordNumber
+     * @param userId
+     * @param generator
+     * @throws SQLException
+     * @throws IOException
+     */
+    private static final String STREAM_VOLUMES = STREAM_RECORDS +
+            "WHERE r.BaseNumber = ? " +
+            "ORDER BY r.Volume ASC, r.Id ASC";
+    public static void writeVolumesByNumber(String recordNumber, int userId, JsonGenerator generator)
+            throws SQLException, IOException {
+        int colonIndex = recordNumber.indexOf(":");
+        if (colonIndex != -1)
+            recordNumber = recordNumber.substring(0, colonIndex);
+
+        Principal principal = Authenticator.getPrincipal(userId);
+        generator.writeStartArray();
+        try (Connection conn = DbConnect.getStreamingConnection();
+             PreparedStatement ps = DbConnect.prepareStreaming(conn, STREAM_VOLUMES)) {
+            ps.setInt(1, NoteTable.RECORDS.id);
+            ps.setString(2, recordNumber);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (principal.canView(rs.getInt("LocationId"))) {
+                        generator.writeObject(parseStreamedRecord(rs));
+                    }
                 }
+            }
+        }
+        generator.writeEndArray();
+        generator.flush();
+    }
+
+    private static Record parseStreamedRecord(ResultSet rs) throws SQLException {
+        Record record = parseResultSet(rs, ALL_COLUMNS);
+        setReferenceNames(record, Projection.ALL);
+        record.setContainerNumber(rs.getString("ContainerNumber"));
+        record.setClassIds(MultiGet.splitIds(rs.getString("ClassIds")));
+        record.setClassifications(ClassificationController.buildClassificationPath(record.getClassIds()));
+        record.setHasNotes(rs.getInt("NotesLength") > 0);
+        record.setNotesLength(rs.getInt("NotesLength"));
+        return record;
+    }
 
+    private static List<Document> scrubDocuments(List<Document> documentList, int userId) throws SQLException {
+        Principal principal = Authenticator.getPrincipal(userId);
+        for (Document document : documentList) {
+            if (!principal.isAssignedTo(document.getLocationId())) {
+                document.setConsignmentCode("***");
             }
-        });
+        }
         return documentList;
     }
 
@@ -790,16 +1452,13 @@ public class RecordController {
      * @throws SQLException
      * @throws IllegalArgumentException
      */
-    private static final String CHECK_LATEST_VOLUME =
-        "SELECT r.Id = s.Id as latestVolume " +
-        "FROM (SELECT * " +
-                "FROM records " +
-                "WHERE Id = ?) AS r " +
-        "JOIN (SELECT Id, Number " +
-                "FROM records " +
-                      "WHERE Number LIKE BINARY ? " +
-                      "ORDER BY Number DESC " +
-                      "LIMIT 1) AS s; ";
+    private static final String GET_LATEST_VOLUME =
+            "SELECT Id, Volume " +
+            "FROM records " +
+            "WHERE BaseNumber = ? " +
+            "ORDER BY Volume DESC, Id DESC " +
+            "LIMIT 1 " +
+            "FOR UPDATE";
     private static final String UPDATE_LATEST_VOLUME =
             "UPDATE records " +
             "SET Number=?, StateId=?, UpdatedAt=NOW() " +
@@ -815,11 +1474,10 @@ public class RecordController {
             "FROM recordclassifications " +
             "WHERE RecordId = ?";
     private static final String COPY_NOTES =
-            "INSERT INTO notes (TableId, RowId, Chunk, Text) " +
-            "SELECT TableId, ?, Chunk, Text " +
+            "INSERT INTO notes (TableId, RowId, Chunk, Text, Length) " +
+            "SELECT TableId, ?, Chunk, Text, Length " +
             "FROM notes " +
             "WHERE TableId = ? AND RowId = ?";
-    // todo use @Transactional
     public static Record createVolume(Integer id, int userId, Boolean copyNotes) throws SQLException{
         if (!Authenticator.authenticate(userId, Role.ADMINISTRATOR) &&
                 !Authenticator.authenticate(userId, Role.RMC)) {
@@ -837,93 +1495,93 @@ public class RecordController {
                     baseRecord.getLocation()));
         }
 
-        // Check colon count to increment volume
+        // Check colon count to find the volume family
         String number = baseRecord.getNumber();
-        String baseNumber;
-
         int colonCount = StringUtils.countOccurrencesOf(number, ":");
         if (colonCount > 1) {
             throw new IllegalArgumentException(String.format("Unsupported volume format for volume creation: %s.", number));
-        } else if (colonCount == 1) {
-            String[] pieces = baseRecord.getNumber().split(":");
-            baseNumber = pieces[0];
-            int newVolume = Integer.parseInt(pieces[1]) + 1;
-            if (newVolume > 99) {
-                throw new IllegalArgumentException(String.format(
-                        "Unable to create volume :%d for record %s. Volume numbers over 99 currently not supported.",
-                        newVolume, number));
-            }
-            number = String.format("%s:%02d", baseNumber, newVolume);
-        } else {
-            baseNumber = number;
-            number = number + ":02";
         }
-
-        // Check if it's the latest volume
-        try (Connection conn = DbConnect.getConnection();
-            PreparedStatement ps = conn.prepareStatement(CHECK_LATEST_VOLUME)){
-            ps.setInt(1, id);
-            ps.setString(2, baseNumber + "%");
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    if (!rs.getBoolean("latestVolume")) {
+        String baseNumber = colonCount == 1 ? number.split(":")[0] : number;
+
+        int newRecordId = UnitOfWork.inTransaction(() -> {
+            Connection conn = DbConnect.getConnection();
+
+            // Check if it's the latest volume. Locking the family's index range keeps concurrent
+            // creates from taking the same volume number.
+            int newVolume;
+            try (PreparedStatement ps = conn.prepareStatement(GET_LATEST_VOLUME)) {
+                ps.setString(1, baseNumber);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next() || rs.getInt("Id") != id) {
                         throw new IllegalArgumentException(String.format(
                                 "Unable to create new volume from record %s. New volumes can only be created from latest existing volume.",
-                                baseRecord.getNumber()));
+                                number));
                     }
+                    newVolume = rs.getInt("Volume") + 1;
                 }
             }
-        }
-
-        int newRecordId = -1;
-        try (Connection conn = DbConnect.getConnection()){
-            conn.setAutoCommit(false);
+            if (newVolume > 99) {
+                throw new IllegalArgumentException(String.format(
+                        "Unable to create volume :%d for record %s. Volume numbers over 99 currently not supported.",
+                        newVolume, number));
+            }
+            String newNumber = String.format("%s:%02d", baseNumber, newVolume);
 
             // Create the new volume
-            PreparedStatement ps = conn.prepareStatement(CREATE_NEW_VOLUME, Statement.RETURN_GENERATED_KEYS);
-            ps.setString(1, number);
-            ps.setInt(2, id);
-            int rowsModified = ps.executeUpdate();
-
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                if (rs.next()) {
-                    newRecordId =  rs.getInt(1);
+            int newVolumeId = -1;
+            int rowsModified;
+            try (PreparedStatement ps = conn.prepareStatement(CREATE_NEW_VOLUME, Statement.RETURN_GENERATED_KEYS)) {
+                ps.setString(1, newNumber);
+                ps.setInt(2, id);
+                rowsModified = ps.executeUpdate();
+
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        newVolumeId = rs.getInt(1);
+                    }
                 }
             }
 
-            if (newRecordId < 0 || rowsModified != 1) {
+            if (newVolumeId < 0 || rowsModified != 1) {
                 LOGGER.error(String.format("Failed to save new volume to DB. Rows modified: %d.", rowsModified));
                 throw new SQLException(String.format("Failed to save new volume to DB. Rows modified: %d.", rowsModified));
             }
 
             // Copy the classifications
-            ps = conn.prepareStatement(COPY_CLASSIFICATION);
-            ps.setInt(1, newRecordId);
-            ps.setInt(2, id);
-            ps.executeUpdate();
+            try (PreparedStatement ps = conn.prepareStatement(COPY_CLASSIFICATION)) {
+                ps.setInt(1, newVolumeId);
+                ps.setInt(2, id);
+                ps.executeUpdate();
+            }
 
             // Copy the notes
             if (copyNotes) {
-                ps = conn.prepareStatement(COPY_NOTES);
-                ps.setInt(1, newRecordId);
-                ps.setInt(2, NoteTable.RECORDS.id);
-                ps.setInt(3, id);
-                ps.executeUpdate();
+                try (PreparedStatement ps = conn.prepareStatement(COPY_NOTES)) {
+                    ps.setInt(1, newVolumeId);
+                    ps.setInt(2, NoteTable.RECORDS.id);
+                    ps.setInt(3, id);
+                    ps.executeUpdate();
+                }
             }
 
             // Update first volume
-            ps = conn.prepareStatement(UPDATE_LATEST_VOLUME);
-            ps.setString(1, colonCount == 1 ? baseRecord.getNumber() : baseRecord.getNumber() + ":01");
-            ps.setInt(2, RecordState.INACTIVE.getId());
-            ps.setInt(3, id);
-            rowsModified = ps.executeUpdate();
+            String baseVolumeNumber = colonCount == 1 ? baseRecord.getNumber() : baseRecord.getNumber() + ":01";
+            try (PreparedStatement ps = conn.prepareStatement(UPDATE_LATEST_VOLUME)) {
+                ps.setString(1, baseVolumeNumber);
+                ps.setInt(2, RecordState.INACTIVE.getId());
+                ps.setInt(3, id);
+                rowsModified = ps.executeUpdate();
+            }
 
             if (rowsModified != 1) {
                 throw new SQLException(String.format("Could not update base volume. Updated %d records.", rowsModified));
             }
 
-            conn.commit();
-        }
+            SearchIndex.recordSaved(newVolumeId, newNumber);
+            SearchIndex.recordSaved(id, baseVolumeNumber);
+
+            return newVolumeId;
+        });
 
         LOGGER.info("Updated record. Record Id {}", id);
         LOGGER.info("Created record. Record Id {}", newRecordId);
@@ -961,10 +1619,11 @@ public class RecordController {
             errorResponse.put("error", RECORD_IS_NOT_CLOSED);
         } else {
             if (listOfRecords.size() == ids.getRecordIds().size()) {
+                Principal principal = Authenticator.getPrincipal(userId);
                 for (Record record : listOfRecords) {
                     if (record != null) {
                         if (record.getStateId() != RecordState.DESTROYED.getId()) {
-                            if(!Authenticator.isUserAuthenticatedForLocation(userId, record.getLocationId())){
+                            if(!principal.isAssignedTo(record.getLocationId())){
                                 throw new AuthenticationException(String.format("You do not have permission to destroy record %s from your location %s.",
                                         record.getNumber(), record.getLocation()));
                             }
@@ -1009,28 +1668,11 @@ public class RecordController {
      * @param ids
      * @throws SQLException
      */
+    private static final String DESTROY_RECORDS =
+            "UPDATE records " +
+            "SET StateId = " + RecordState.DESTROYED.getId() + ", UpdatedAt = NOW(), ContainerId = NULL " +
+            "WHERE Id IN (%s)";
     public static void destroyRecords(List<Integer> ids) throws SQLException {
-        String query = "UPDATE records "
-                + "SET StateId = " + RecordState.DESTROYED.getId()
-                + " , UpdatedAt = NOW() "
-                + " , ContainerId = NULL WHERE Id IN (";
-        String destroyRecordsQuery = completeIdsInQuery(ids, query);
-
-        try (Connection conn = DbConnect.getConnection();
-             PreparedStatement ps = conn.prepareStatement(destroyRecordsQuery)){
-            ps.executeUpdate();
-        }
-    }
-
-    private static String completeIdsInQuery(List<Integer> ids, String query){
-        Iterator<Integer> idsIterator = ids.iterator();
-        while(idsIterator.hasNext())
-        {
-            query += idsIterator.next().toString();
-            if(idsIterator.hasNext()){
-                query += ",";
-            }
-        }
-        return query + ")";
+        MultiGet.update(DESTROY_RECORDS, ids);
     }
 }
@@ -2,7 +2,6 @@ package com.discovery.channel.database;
 
 import com.discovery.channel.model.RecordType;
 
-import javax.ws.rs.GET;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -12,12 +11,21 @@ import java.util.List;
 
 public class RecordTypeController {
 
+    public static List<RecordType> getAllRecordTypes() throws SQLException {
+        return new ArrayList<>(ReferenceDataCache.get().getRecordTypes().values());
+    }
 
+    /**
+     * Load all record types for the reference data cache
+     *
+     * @return all record types
+     * @throws SQLException
+     */
     private static String GET_ALL_TYPES =
             "SELECT rt.Id, rt.Name, rt.NumberPattern, rs.Name AS Schedule " +
             "FROM recordtypes rt " +
             "LEFT JOIN retentionschedules rs ON rt.DefaultScheduleId = rs.Id";
-    public static List<RecordType> getAllRecordTypes() throws SQLException {
+    static List<RecordType> loadAllRecordTypes() throws SQLException {
         List<RecordType> recordTypes = new ArrayList<>();
         try(Connection conn = DbConnect.getConnection();
         PreparedStatement ps = conn.prepareStatement(GET_ALL_TYPES)) {
@@ -40,34 +48,45 @@ public class RecordTypeController {
      * @param typeId
      * @return type name
      */
-    private static final String GET_TYPE_BY_ID = "SELECT Name " +
-            "FROM recordtypes " +
-            "WHERE Id = ?";
     public static String getTypeName(int typeId) throws SQLException {
-        try (Connection con = DbConnect.getConnection();
-             PreparedStatement ps = con.prepareStatement(GET_TYPE_BY_ID)) {
-            ps.setInt(1, typeId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getString("Name");
-                }
-            }
-        }
-        return null;
+        RecordType type = findRecordTypeById(typeId);
+        return type == null ? null : type.getTypeName();
     }
 
 
-    private static final String GET_NUMBER_PATTERN_BY_ID =
-            "SELECT NumberPattern " +
-                    "FROM recordtypes " +
-                    "WHERE Id = ?";
     public static String getNumberPattern(int typeId) throws SQLException {
+        RecordType type = findRecordTypeById(typeId);
+        return type == null ? null : type.getNumberPattern();
+    }
+
+    /**
+     * Find a record type, served from the reference data cache
+     *
+     * @param typeId
+     * @return the record type, or null if it does not exist
+     * @throws SQLException
+     */
+    private static final String GET_TYPE_BY_ID =
+            "SELECT rt.Id, rt.Name, rt.NumberPattern, rs.Name AS Schedule " +
+            "FROM recordtypes rt " +
+            "LEFT JOIN retentionschedules rs ON rt.DefaultScheduleId = rs.Id " +
+            "WHERE rt.Id = ?";
+    private static RecordType findRecordTypeById(int typeId) throws SQLException {
+        RecordType type = ReferenceDataCache.lookup(ReferenceData::getRecordTypes, typeId);
+        if (type != null || typeId <= 0) {
+            return type;
+        }
         try (Connection con = DbConnect.getConnection();
-             PreparedStatement ps = con.prepareStatement(GET_NUMBER_PATTERN_BY_ID)) {
+             PreparedStatement ps = con.prepareStatement(GET_TYPE_BY_ID)) {
             ps.setInt(1, typeId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    return rs.getString("NumberPattern");
+                    ReferenceDataCache.invalidate();
+                    return new RecordType(
+                            rs.getInt("Id"),
+                            rs.getString("Name"),
+                            rs.getString("NumberPattern"),
+                            rs.getString("Schedule"));
                 }
             }
         }
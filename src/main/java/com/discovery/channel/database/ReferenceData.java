@@ -0,0 +1,61 @@
+package com.discovery.channel.database;
+
+import com.discovery.channel.model.Location;
+import com.discovery.channel.model.RecordType;
+import com.discovery.channel.model.RetentionSchedule;
+import com.discovery.channel.model.State;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the reference tables: locations, record states, record types, retention schedules
+ * and the classification hierarchy.
+ * A new snapshot is built on every reload and swapped in whole by ReferenceDataCache.
+ */
+@Getter
+class ReferenceData {
+    private final long version;
+    private final String fingerprint;
+    private final Map<Integer, Location> locations;
+    private final Set<Integer> restrictedLocationIds;
+    private final Map<Integer, State> states;
+    private final Map<Integer, RecordType> recordTypes;
+    private final Map<Integer, RetentionSchedule> retentionSchedules;
+    private final ClassificationIndex classifications;
+
+    ReferenceData(long version,
+                  String fingerprint,
+                  List<Location> locations,
+                  Set<Integer> restrictedLocationIds,
+                  List<State> states,
+                  List<RecordType> recordTypes,
+                  List<RetentionSchedule> retentionSchedules,
+                  ClassificationIndex classifications) {
+        this.version = version;
+        this.fingerprint = fingerprint;
+        this.restrictedLocationIds = Collections.unmodifiableSet(restrictedLocationIds);
+
+        Map<Integer, Location> locationMap = new LinkedHashMap<>();
+        locations.forEach(location -> locationMap.put(location.getLocationId(), location));
+        this.locations = Collections.unmodifiableMap(locationMap);
+
+        Map<Integer, State> stateMap = new LinkedHashMap<>();
+        states.forEach(state -> stateMap.put(state.getId(), state));
+        this.states = Collections.unmodifiableMap(stateMap);
+
+        Map<Integer, RecordType> typeMap = new LinkedHashMap<>();
+        recordTypes.forEach(type -> typeMap.put(type.getTypeId(), type));
+        this.recordTypes = Collections.unmodifiableMap(typeMap);
+
+        Map<Integer, RetentionSchedule> scheduleMap = new LinkedHashMap<>();
+        retentionSchedules.forEach(schedule -> scheduleMap.put(schedule.getId(), schedule));
+        this.retentionSchedules = Collections.unmodifiableMap(scheduleMap);
+
+        this.classifications = classifications;
+    }
+}
@@ -0,0 +1,196 @@
+package com.discovery.channel.database;
+
+import com.discovery.channel.properties.DefaultProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * In-process cache of the reference tables (locations, record states, record types, retention schedules,
+ * classifications and classhierarchy).
+ *
+ * Readers always get a complete, immutable ReferenceData snapshot. Once the TTL has passed, the first reader
+ * checks the table checksums and reloads only if they changed; other readers keep using the current snapshot
+ * in the meantime. invalidate() forces a reload on the next read.
+ */
+public class ReferenceDataCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReferenceDataCache.class);
+    private static final DefaultProperties PROPERTIES = DefaultProperties.getInstance();
+
+    private static final long DEFAULT_TTL_SECONDS = 300;
+    private static final long TTL_MILLIS = getTtlSeconds() * 1000;
+
+    private static final AtomicReference<ReferenceData> SNAPSHOT = new AtomicReference<>();
+    private static final ReentrantLock RELOAD_LOCK = new ReentrantLock();
+    private static final AtomicLong VERSION = new AtomicLong();
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static volatile long checkedAt;
+    private static volatile boolean invalidated;
+
+    // Hide constructor
+    private ReferenceDataCache() {
+    }
+
+    /**
+     * Load the snapshot eagerly, e.g. at application startup
+     *
+     * @throws SQLException
+     */
+    public static void load() throws SQLException {
+        RELOAD_LOCK.lock();
+        try {
+            reload();
+        } finally {
+            RELOAD_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Mark the current snapshot as stale. The next read reloads the reference tables.
+     */
+    public static void invalidate() {
+        LOGGER.info("Reference data invalidated");
+        invalidated = true;
+        checkedAt = 0;
+    }
+
+    /**
+     * Get the current snapshot, loading or refreshing it if needed
+     *
+     * @return reference data snapshot
+     * @throws SQLException
+     */
+    static ReferenceData get() throws SQLException {
+        ReferenceData snapshot = SNAPSHOT.get();
+        if (snapshot == null) {
+            RELOAD_LOCK.lock();
+            try {
+                snapshot = SNAPSHOT.get();
+                if (snapshot == null) {
+                    snapshot = reload();
+                }
+            } finally {
+                RELOAD_LOCK.unlock();
+            }
+        } else if (System.currentTimeMillis() - checkedAt > TTL_MILLIS && RELOAD_LOCK.tryLock()) {
+            try {
+                snapshot = refresh(snapshot);
+            } catch (SQLException e) {
+                LOGGER.error("Failed to refresh reference data. Keeping snapshot version {}", snapshot.getVersion(), e);
+                checkedAt = System.currentTimeMillis();
+            } finally {
+                RELOAD_LOCK.unlock();
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Get the version of the current snapshot, loading or refreshing it if needed. The version changes whenever
+     * the reference tables are reloaded.
+     *
+     * @return snapshot version
+     * @throws SQLException
+     */
+    public static long getVersion() throws SQLException {
+        return get().getVersion();
+    }
+
+    /**
+     * Look up a row of a reference table by id, counting cache hits and misses
+     *
+     * @param table the table to look in
+     * @param id
+     * @return the cached row, or null if the snapshot does not contain it
+     * @throws SQLException
+     */
+    static <T> T lookup(Function<ReferenceData, Map<Integer, T>> table, int id) throws SQLException {
+        // Ids start at 1; 0 is how a NULL foreign key is read, so there is nothing to look up
+        if (id <= 0) {
+            return null;
+        }
+        T value = table.apply(get()).get(id);
+        if (value != null) {
+            HITS.incrementAndGet();
+        } else {
+            MISSES.incrementAndGet();
+        }
+        return value;
+    }
+
+    public static Map<String, Object> getStats() {
+        ReferenceData snapshot = SNAPSHOT.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", HITS.get());
+        stats.put("misses", MISSES.get());
+        stats.put("version", snapshot == null ? 0 : snapshot.getVersion());
+        stats.put("locations", snapshot == null ? 0 : snapshot.getLocations().size());
+        stats.put("states", snapshot == null ? 0 : snapshot.getStates().size());
+        stats.put("recordTypes", snapshot == null ? 0 : snapshot.getRecordTypes().size());
+        stats.put("retentionSchedules", snapshot == null ? 0 : snapshot.getRetentionSchedules().size());
+        stats.put("classifications", snapshot == null ? 0 : snapshot.getClassifications().size());
+        return stats;
+    }
+
+    /**
+     * Keep the current snapshot if the tables did not change since it was loaded, otherwise reload
+     */
+    private static ReferenceData refresh(ReferenceData snapshot) throws SQLException {
+        if (!invalidated && snapshot.getFingerprint().equals(getFingerprint())) {
+            LOGGER.debug("Reference data unchanged. Keeping snapshot version {}", snapshot.getVersion());
+            checkedAt = System.currentTimeMillis();
+            return snapshot;
+        }
+        return reload();
+    }
+
+    private static ReferenceData reload() throws SQLException {
+        invalidated = false;
+        String fingerprint = getFingerprint();
+        ReferenceData snapshot = new ReferenceData(VERSION.incrementAndGet(),
+                fingerprint,
+                LocationController.loadAllLocations(),
+                LocationController.loadRestrictedLocationIds(),
+                StateController.loadAllStates(),
+                RecordTypeController.loadAllRecordTypes(),
+                RetentionScheduleController.loadAllRetentionSchedules(),
+                ClassificationController.loadClassificationIndex());
+        SNAPSHOT.set(snapshot);
+        checkedAt = System.currentTimeMillis();
+        LOGGER.info("Loaded reference data version {}", snapshot.getVersion());
+        return snapshot;
+    }
+
+    /**
+     * Checksum of the reference tables; changes whenever any of their rows change
+     */
+    private static final String GET_REFERENCE_TABLES_CHECKSUM =
+            "CHECKSUM TABLE locations, recordstates, recordtypes, retentionschedules, classifications, classhierarchy";
+    private static String getFingerprint() throws SQLException {
+        StringBuilder fingerprint = new StringBuilder();
+        try (Connection conn = DbConnect.getConnection();
+             PreparedStatement ps = conn.prepareStatement(GET_REFERENCE_TABLES_CHECKSUM);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                fingerprint.append(rs.getString("Table")).append('=').append(rs.getLong("Checksum")).append(';');
+            }
+        }
+        return fingerprint.toString();
+    }
+
+    private static long getTtlSeconds() {
+        int ttl = PROPERTIES.getIntProperty("CACHE.REFERENCE_DATA.TTL_SECONDS");
+        return ttl < 0 ? DEFAULT_TTL_SECONDS : ttl;
+    }
+}
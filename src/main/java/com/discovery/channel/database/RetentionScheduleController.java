@@ -8,9 +8,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class RetentionScheduleController {
 
@@ -19,8 +17,18 @@ public class RetentionScheduleController {
      * @return
      * @throws SQLException
      */
-    private static final String GET_ALL_SCHEDULES = "SELECT * FROM retentionschedules";
     public static List<RetentionSchedule> getAllRetentionSchedules() throws SQLException {
+        return new ArrayList<>(ReferenceDataCache.get().getRetentionSchedules().values());
+    }
+
+    /**
+     * Load all retention schedules for the reference data cache
+     *
+     * @return all retention schedules
+     * @throws SQLException
+     */
+    private static final String GET_ALL_SCHEDULES = "SELECT * FROM retentionschedules";
+    static List<RetentionSchedule> loadAllRetentionSchedules() throws SQLException {
         List<RetentionSchedule> schedules = new ArrayList<>();
         try(Connection conn = DbConnect.getConnection();
             PreparedStatement ps = conn.prepareStatement(GET_ALL_SCHEDULES)) {
@@ -48,20 +56,39 @@ public class RetentionScheduleController {
             "FROM retentionschedules " +
             "WHERE Id=?";
     public static RetentionSchedule getRetentionSchedule(int scheduleId) throws SQLException {
+        RetentionSchedule schedule = findRetentionSchedule(scheduleId);
+        if (schedule == null) {
+            throw new NoResultsFoundException("No retention schedule found.");
+        }
+        return schedule;
+    }
+
+    /**
+     * Find a retention schedule, served from the reference data cache
+     *
+     * @param scheduleId schedule id
+     * @return the schedule, or null if it does not exist
+     * @throws SQLException
+     */
+    static RetentionSchedule findRetentionSchedule(int scheduleId) throws SQLException {
+        RetentionSchedule schedule = ReferenceDataCache.lookup(ReferenceData::getRetentionSchedules, scheduleId);
+        if (schedule != null || scheduleId <= 0) {
+            return schedule;
+        }
         try (Connection con = DbConnect.getConnection();
              PreparedStatement ps = con.prepareStatement(GET_RECORD_SCHEDULE_BY_ID)) {
             ps.setInt(1, scheduleId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
+                    ReferenceDataCache.invalidate();
                     return new RetentionSchedule(
                             rs.getInt("Id"),
                             rs.getString("Name"),
                             rs.getString("Code"),
                             rs.getInt("Years"));
-                } else {
-                    throw new NoResultsFoundException("No retention schedule found.");
                 }
             }
         }
+        return null;
     }
 }
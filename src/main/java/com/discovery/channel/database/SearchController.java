@@ -0,0 +1,310 @@
+package com.discovery.channel.database;
+
+import com.discovery.channel.authenticator.Authenticator;
+import com.discovery.channel.model.Container;
+import com.discovery.channel.model.Document;
+import com.discovery.channel.model.PagedResults;
+import com.discovery.channel.model.Projection;
+import com.discovery.channel.model.Record;
+import com.discovery.channel.model.SearchCursor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class SearchController {
+    private static final int RECORD = 0;
+    private static final int CONTAINER = 1;
+
+    // No location has id 0, so it pads the hidden location list without hiding anything
+    private static final int NO_LOCATION = 0;
+
+    // Candidate lists are padded to a power of 4 like MultiGet's, but may be much longer: probing even thousands
+    // of primary keys is far cheaper than scanning the table with LIKE, which short and common queries need most
+    private static final int MAX_CANDIDATES = 16384;
+
+    // Used instead of the id list when more locations are hidden than fit in one parameter list
+    private static final String HIDDEN_LOCATIONS =
+            "SELECT l.Id FROM locations l " +
+            "WHERE l.Restricted = true " +
+            "AND NOT EXISTS (SELECT 1 FROM userlocations ul WHERE ul.LocationId = l.Id AND ul.UserId = ?)";
+
+    /**
+     * Search records and/or containers by number. Both kinds are read as one stream ordered by
+     * records first, then containers, each by (Number, Id); the total comes from the same query.
+     *
+     * When the search index can answer the query, each table is only probed for the candidate ids it returned;
+     * otherwise, or when there are too many candidates, the table is scanned with LIKE.
+     *
+     * @param number
+     * @param searchRecord
+     * @param searchContainer
+     * @param page
+     * @param pageSize
+     * @param userId
+     * @param projection fields of the documents to load
+     * @return a page of documents
+     * @throws SQLException
+     */
+    private static final String SEARCH_BY_NUMBER =
+            "SELECT SQL_CALC_FOUND_ROWS DocType, Id, Number FROM (" +
+                "SELECT " + RECORD + " AS DocType, Id, Number FROM records " +
+                "WHERE ? AND %2$sNumber LIKE ? " +
+                "AND (LocationId IS NULL OR LocationId NOT IN (%1$s)) " +
+                "UNION ALL " +
+                "SELECT " + CONTAINER + " AS DocType, Id, Number FROM containers " +
+                "WHERE ? AND %3$sNumber LIKE ? " +
+                "AND (LocationId IS NULL OR LocationId NOT IN (%1$s))" +
+            ") AS documents " +
+            "ORDER BY DocType ASC, Number ASC, Id ASC " +
+            "LIMIT ?, ?";
+    private static final String ID_FILTER = "Id IN (%s) AND ";
+    private static final String GET_FOUND_ROWS = "SELECT FOUND_ROWS()";
+    public static PagedResults<Document> searchByNumber(String number,
+                                                       boolean searchRecord, boolean searchContainer,
+                                                       int page, int pageSize,
+                                                       int userId, Projection projection) throws SQLException {
+        List<Integer> recordCandidates = searchRecord ? getCandidates(SearchIndex.findRecords(number)) : null;
+        List<Integer> containerCandidates = searchContainer ? getCandidates(SearchIndex.findContainers(number)) : null;
+        // The index found nothing, so there is nothing to look up
+        searchRecord = searchRecord && (recordCandidates == null || !recordCandidates.isEmpty());
+        searchContainer = searchContainer && (containerCandidates == null || !containerCandidates.isEmpty());
+        if (!searchRecord && !searchContainer) {
+            return new PagedResults<>(page, 0, new ArrayList<>());
+        }
+
+        HiddenLocations hidden = new HiddenLocations(userId);
+        String sql = String.format(SEARCH_BY_NUMBER, hidden.toSql(),
+                idFilter(searchRecord ? recordCandidates : null),
+                idFilter(searchContainer ? containerCandidates : null));
+
+        List<Integer> recordIds = new ArrayList<>();
+        List<Integer> containerIds = new ArrayList<>();
+        int total = 0;
+        try (Connection conn = DbConnect.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                int index = 1;
+                index = bindBranch(ps, index, searchRecord, recordCandidates, number, hidden);
+                index = bindBranch(ps, index, searchContainer, containerCandidates, number, hidden);
+                ps.setInt(index++, (page - 1) * pageSize);
+                ps.setInt(index, pageSize);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        if (rs.getInt("DocType") == RECORD) {
+                            recordIds.add(rs.getInt("Id"));
+                        } else {
+                            containerIds.add(rs.getInt("Id"));
+                        }
+                    }
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(GET_FOUND_ROWS);
+                 ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    total = rs.getInt(1);
+                }
+            }
+        }
+
+        // Records sort before containers, so the page is the records followed by the containers
+        List<Document> documents = new ArrayList<>(recordIds.size() + containerIds.size());
+        List<Record> records = RecordController.getRecordsByIds(recordIds, projection);
+        List<Container> containers = ContainerController.getContainersByIds(containerIds, projection);
+        documents.addAll(records);
+        documents.addAll(containers);
+
+        return new PagedResults<>(page, (total + pageSize - 1) / pageSize, documents);
+    }
+
+    /**
+     * Search records and/or containers by number, one page at a time using a cursor instead of an offset.
+     * Each table seeks past the cursor on (Number, Id) and reads at most one page more than needed, so later pages
+     * cost the same as the first; the total is only counted for the first page, later pages have no page count.
+     *
+     * @param after cursor of the last document of the previous page, or null for the first page
+     * @return a page of documents, with the cursor of the next page if there is one
+     * @throws SQLException
+     */
+    private static final String SEARCH_BY_NUMBER_AFTER =
+            "SELECT DocType, Id, Number FROM (" +
+                "(SELECT " + RECORD + " AS DocType, Id, Number FROM records " +
+                "WHERE ? AND %2$sNumber LIKE ? " +
+                "AND (LocationId IS NULL OR LocationId NOT IN (%1$s)) " +
+                "AND (Number > ? OR (Number = ? AND Id > ?)) " +
+                "ORDER BY Number ASC, Id ASC LIMIT ?) " +
+                "UNION ALL " +
+                "(SELECT " + CONTAINER + " AS DocType, Id, Number FROM containers " +
+                "WHERE ? AND %3$sNumber LIKE ? " +
+                "AND (LocationId IS NULL OR LocationId NOT IN (%1$s)) " +
+                "AND (Number > ? OR (Number = ? AND Id > ?)) " +
+                "ORDER BY Number ASC, Id ASC LIMIT ?)" +
+            ") AS documents " +
+            "ORDER BY DocType ASC, Number ASC, Id ASC " +
+            "LIMIT ?";
+    public static PagedResults<Document> searchByNumberAfter(String number,
+                                                            boolean searchRecord, boolean searchContainer,
+                                                            SearchCursor after, int pageSize,
+                                                            int userId, Projection projection) throws SQLException {
+        boolean afterContainers = after != null && after.getType() == SearchCursor.DocumentType.CONTAINER;
+        // Records sort before containers, so no record is left once the cursor is on a container
+        searchRecord = searchRecord && !afterContainers;
+        List<Integer> recordCandidates = searchRecord ? getCandidates(SearchIndex.findRecords(number)) : null;
+        List<Integer> containerCandidates = searchContainer ? getCandidates(SearchIndex.findContainers(number)) : null;
+        searchRecord = searchRecord && (recordCandidates == null || !recordCandidates.isEmpty());
+        searchContainer = searchContainer && (containerCandidates == null || !containerCandidates.isEmpty());
+
+        int page = after == null ? 1 : after.getPage() + 1;
+        Integer pageCount = after == null ? 0 : null;
+        if (!searchRecord && !searchContainer) {
+            return new PagedResults<>(page, pageCount, new ArrayList<>());
+        }
+
+        HiddenLocations hidden = new HiddenLocations(userId);
+        String sql = String.format(after == null ? SEARCH_BY_NUMBER : SEARCH_BY_NUMBER_AFTER, hidden.toSql(),
+                idFilter(searchRecord ? recordCandidates : null),
+                idFilter(searchContainer ? containerCandidates : null));
+
+        List<Integer> recordIds = new ArrayList<>();
+        List<Integer> containerIds = new ArrayList<>();
+        SearchCursor last = null;
+        SearchCursor next = null;
+        try (Connection conn = DbConnect.getConnection()) {
+            // Fetch one extra document to know whether there is a next page
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                int index = 1;
+                if (after == null) {
+                    index = bindBranch(ps, index, searchRecord, recordCandidates, number, hidden);
+                    index = bindBranch(ps, index, searchContainer, containerCandidates, number, hidden);
+                    ps.setInt(index++, 0);
+                } else {
+                    index = bindBranch(ps, index, searchRecord, recordCandidates, number, hidden);
+                    index = bindAfter(ps, index, afterContainers ? null : after, pageSize + 1);
+                    index = bindBranch(ps, index, searchContainer, containerCandidates, number, hidden);
+                    index = bindAfter(ps, index, afterContainers ? after : null, pageSize + 1);
+                }
+                ps.setInt(index, pageSize + 1);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        if (recordIds.size() + containerIds.size() == pageSize) {
+                            next = last;
+                            break;
+                        }
+                        boolean record = rs.getInt("DocType") == RECORD;
+                        (record ? recordIds : containerIds).add(rs.getInt("Id"));
+                        last = new SearchCursor(
+                                record ? SearchCursor.DocumentType.RECORD : SearchCursor.DocumentType.CONTAINER,
+                                rs.getString("Number"), rs.getInt("Id"), page);
+                    }
+                }
+            }
+            if (after == null) {
+                try (PreparedStatement ps = conn.prepareStatement(GET_FOUND_ROWS);
+                     ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        pageCount = (rs.getInt(1) + pageSize - 1) / pageSize;
+                    }
+                }
+            }
+        }
+
+        List<Document> documents = new ArrayList<>(recordIds.size() + containerIds.size());
+        documents.addAll(RecordController.getRecordsByIds(recordIds, projection));
+        documents.addAll(ContainerController.getContainersByIds(containerIds, projection));
+
+        return new PagedResults<>(page, pageCount, documents, next == null ? null : next.encode());
+    }
+
+    /**
+     * @return the candidates if they fit in one id list, otherwise null to scan the table
+     */
+    private static List<Integer> getCandidates(List<Integer> candidates) {
+        boolean used = candidates != null && candidates.size() <= MAX_CANDIDATES;
+        SearchIndex.countSearch(candidates, used);
+        return used ? candidates : null;
+    }
+
+    private static String idFilter(List<Integer> candidates) {
+        if (candidates == null) {
+            return "";
+        }
+        int arity = candidateArity(candidates.size());
+        return String.format(ID_FILTER, arity <= MultiGet.MAX_CHUNK_SIZE ?
+                MultiGet.inClause(arity) :
+                String.join(",", Collections.nCopies(arity, "?")));
+    }
+
+    /**
+     * @return the smallest power of 4 that fits count candidates, as MultiGet.arity up to its largest size
+     */
+    private static int candidateArity(int count) {
+        int arity = 1;
+        while (arity < count) {
+            arity *= 4;
+        }
+        return arity;
+    }
+
+    private static int bindBranch(PreparedStatement ps, int index, boolean enabled, List<Integer> candidates,
+                                  String number, HiddenLocations hidden) throws SQLException {
+        ps.setBoolean(index++, enabled);
+        if (enabled && candidates != null) {
+            // Pad with the last candidate, as MultiGet does
+            int candidateArity = candidateArity(candidates.size());
+            for (int i = 0; i < candidateArity; i++) {
+                ps.setInt(index++, candidates.get(Math.min(i, candidates.size() - 1)));
+            }
+        }
+        ps.setString(index++, "%" + number + "%");
+        return hidden.bind(ps, index);
+    }
+
+    /**
+     * Bind the keyset of one branch: everything after the cursor, or everything if the cursor is in another table
+     */
+    private static int bindAfter(PreparedStatement ps, int index, SearchCursor after, int limit) throws SQLException {
+        String afterNumber = after == null ? "" : after.getNumber();
+        ps.setString(index++, afterNumber);
+        ps.setString(index++, afterNumber);
+        ps.setInt(index++, after == null ? 0 : after.getId());
+        ps.setInt(index++, limit);
+        return index;
+    }
+
+    /**
+     * The locations a user may not see, for "LocationId NOT IN (...)". Visibility is decided once from the cached
+     * principal instead of joining userlocations per table; only when the list is longer than the largest
+     * parameter list are the locations looked up in the query.
+     */
+    private static class HiddenLocations {
+        private final int userId;
+        private final List<Integer> ids;
+        private final boolean inQuery;
+        private final int arity;
+
+        HiddenLocations(int userId) throws SQLException {
+            this.userId = userId;
+            this.ids = Authenticator.getPrincipal(userId).getHiddenLocationIds();
+            this.inQuery = ids.size() > MultiGet.MAX_CHUNK_SIZE;
+            this.arity = inQuery ? 0 : MultiGet.arity(Math.max(ids.size(), 1));
+        }
+
+        String toSql() {
+            return inQuery ? HIDDEN_LOCATIONS : MultiGet.inClause(arity);
+        }
+
+        int bind(PreparedStatement ps, int index) throws SQLException {
+            if (inQuery) {
+                ps.setInt(index++, userId);
+                return index;
+            }
+            for (int i = 0; i < arity; i++) {
+                ps.setInt(index++, i < ids.size() ? ids.get(i) : NO_LOCATION);
+            }
+            return index;
+        }
+    }
+}
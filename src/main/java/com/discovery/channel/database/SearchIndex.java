@@ -0,0 +1,150 @@
+package com.discovery.channel.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trigram indexes over record and container numbers for the number search.
+ *
+ * The indexes are built at startup and kept current by the controllers, which report every created, renamed
+ * and deleted row. Changes are applied once their transaction commits. Until load() has run, or when a query
+ * cannot use the index, find*() return null and the search falls back to LIKE.
+ */
+public class SearchIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchIndex.class);
+
+    // Guards the indexes being swapped by load() against changes committed while it runs
+    private static final Object LOCK = new Object();
+    private static volatile TrigramIndex records;
+    private static volatile TrigramIndex containers;
+
+    // How each table was searched: with the candidates, by scanning because the index could not tell,
+    // or by scanning because there were too many candidates
+    private static final AtomicLong INDEXED_SEARCHES = new AtomicLong();
+    private static final AtomicLong SCANNED_SEARCHES = new AtomicLong();
+    private static final AtomicLong OVERFLOWED_SEARCHES = new AtomicLong();
+
+    // Hide constructor
+    private SearchIndex() {
+    }
+
+    /**
+     * (Re)build both indexes from the database
+     *
+     * @throws SQLException
+     */
+    private static final String GET_RECORD_NUMBERS = "SELECT Id, Number FROM records";
+    private static final String GET_CONTAINER_NUMBERS = "SELECT Id, Number FROM containers";
+    public static void load() throws SQLException {
+        synchronized (LOCK) {
+            TrigramIndex newRecords = loadIndex(GET_RECORD_NUMBERS);
+            TrigramIndex newContainers = loadIndex(GET_CONTAINER_NUMBERS);
+            records = newRecords;
+            containers = newContainers;
+            LOGGER.info("Loaded search index. {} records, {} containers", newRecords.size(), newContainers.size());
+        }
+    }
+
+    static void recordSaved(int id, String number) {
+        UnitOfWork.afterCommit(() -> apply(true, id, number));
+    }
+
+    static void recordDeleted(int id) {
+        UnitOfWork.afterCommit(() -> apply(true, id, null));
+    }
+
+    static void containerSaved(int id, String number) {
+        UnitOfWork.afterCommit(() -> apply(false, id, number));
+    }
+
+    static void containerDeleted(int id) {
+        UnitOfWork.afterCommit(() -> apply(false, id, null));
+    }
+
+    /**
+     * @param number
+     * @return ids of the records whose number may contain the given number, or null if the index cannot tell
+     */
+    static List<Integer> findRecords(String number) {
+        return find(records, number);
+    }
+
+    /**
+     * @param number
+     * @return ids of the containers whose number may contain the given number, or null if the index cannot tell
+     */
+    static List<Integer> findContainers(String number) {
+        return find(containers, number);
+    }
+
+    /**
+     * Count how a table was searched, for the stats
+     *
+     * @param candidates ids found by the index, or null if it could not tell
+     * @param used false when there were too many candidates and the table was scanned instead
+     */
+    static void countSearch(List<Integer> candidates, boolean used) {
+        if (candidates == null) {
+            SCANNED_SEARCHES.incrementAndGet();
+        } else if (used) {
+            INDEXED_SEARCHES.incrementAndGet();
+        } else {
+            OVERFLOWED_SEARCHES.incrementAndGet();
+        }
+    }
+
+    public static Map<String, Object> getStats() {
+        TrigramIndex recordIndex = records;
+        TrigramIndex containerIndex = containers;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("loaded", recordIndex != null);
+        stats.put("records", recordIndex == null ? 0 : recordIndex.size());
+        stats.put("containers", containerIndex == null ? 0 : containerIndex.size());
+        stats.put("indexedSearches", INDEXED_SEARCHES.get());
+        stats.put("scannedSearches", SCANNED_SEARCHES.get());
+        stats.put("overflowedSearches", OVERFLOWED_SEARCHES.get());
+        return stats;
+    }
+
+    private static List<Integer> find(TrigramIndex index, String number) {
+        if (index == null || !TrigramIndex.canSearch(number)) {
+            return null;
+        }
+        return index.find(number);
+    }
+
+    private static void apply(boolean record, int id, String number) {
+        synchronized (LOCK) {
+            TrigramIndex index = record ? records : containers;
+            if (index == null) {
+                return;
+            }
+            if (number == null) {
+                index.remove(id);
+            } else {
+                index.put(id, number);
+            }
+        }
+    }
+
+    private static TrigramIndex loadIndex(String sql) throws SQLException {
+        TrigramIndex index = new TrigramIndex();
+        try (Connection conn = DbConnect.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                index.put(rs.getInt("Id"), rs.getString("Number"));
+            }
+        }
+        return index;
+    }
+}
@@ -12,9 +12,19 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class StateController {
+    public static List<State> getAllStates() throws SQLException {
+        return new ArrayList<>(ReferenceDataCache.get().getStates().values());
+    }
+
+    /**
+     * Load all states for the reference data cache
+     *
+     * @return all states
+     * @throws SQLException
+     */
     private static final String GET_ALL_STATES = "SELECT * " +
             "FROM recordstates";
-    public static List<State> getAllStates() throws SQLException {
+    static List<State> loadAllStates() throws SQLException {
         List<State> states = new ArrayList<>();
         try (Connection conn = DbConnect.getConnection();
              PreparedStatement ps = conn.prepareStatement(GET_ALL_STATES)){
@@ -37,11 +47,16 @@ public class StateController {
             "FROM recordstates " +
             "WHERE Id = ?";
     public static String getStateName(int stateId) throws SQLException {
+        State state = ReferenceDataCache.lookup(ReferenceData::getStates, stateId);
+        if (state != null || stateId <= 0) {
+            return state == null ? null : state.getName();
+        }
         try (Connection con = DbConnect.getConnection();
              PreparedStatement ps = con.prepareStatement(GET_STATE_BY_ID)) {
             ps.setInt(1, stateId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
+                    ReferenceDataCache.invalidate();
                     return rs.getString("Name");
                 }
             }
@@ -0,0 +1,208 @@
+package com.discovery.channel.database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over the Number column of one table, used to answer "Number LIKE %query%"
+ * without scanning the table.
+ *
+ * Every number is lower cased and split into its overlapping three character substrings. Each trigram keeps a
+ * sorted int[] posting list of the ids that contain it, so a query is the intersection of the lists of its own
+ * trigrams. Numbers that are not plain ASCII may match differently under the database collation, so they are
+ * kept aside and always returned as candidates; the caller still applies the LIKE to the candidates.
+ */
+class TrigramIndex {
+    static final int GRAM = 3;
+
+    private final Map<Integer, String> numbers = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Set<Integer> unindexed = new HashSet<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Add or replace the number of a row
+     *
+     * @param id
+     * @param number
+     */
+    void put(int id, String number) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            if (number == null) {
+                return;
+            }
+            String normalized = normalize(number);
+            numbers.put(id, normalized);
+            if (!isAscii(normalized)) {
+                unindexed.add(id);
+                return;
+            }
+            for (int i = 0; i + GRAM <= normalized.length(); i++) {
+                postings.computeIfAbsent(key(normalized, i), k -> new Postings()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return numbers.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether find() can answer the query. LIKE wildcards, non-ASCII text and queries shorter than a trigram
+     * have to go to the database instead.
+     *
+     * @param query
+     * @return
+     */
+    static boolean canSearch(String query) {
+        if (query == null || query.length() < GRAM || !isAscii(query)) {
+            return false;
+        }
+        return query.indexOf('%') < 0 && query.indexOf('_') < 0 && query.indexOf('\\') < 0;
+    }
+
+    /**
+     * Find the ids of the rows whose number may contain the query, in ascending order
+     *
+     * @param query a query accepted by canSearch()
+     * @return candidate ids
+     */
+    List<Integer> find(String query) {
+        String normalized = normalize(query);
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>();
+            for (int i = 0; i + GRAM <= normalized.length(); i++) {
+                Postings list = postings.get(key(normalized, i));
+                if (list == null) {
+                    lists.clear();
+                    break;
+                }
+                lists.add(list);
+            }
+
+            List<Integer> candidates = new ArrayList<>();
+            if (!lists.isEmpty()) {
+                // Walk the shortest list and probe the others
+                lists.sort(Comparator.comparingInt(list -> list.size));
+                Postings shortest = lists.get(0);
+                for (int i = 0; i < shortest.size; i++) {
+                    int id = shortest.ids[i];
+                    if (containsAll(lists, id) && numbers.get(id).contains(normalized)) {
+                        candidates.add(id);
+                    }
+                }
+            }
+            if (!unindexed.isEmpty()) {
+                candidates.addAll(unindexed);
+                candidates.sort(null);
+            }
+            return candidates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(int id) {
+        String number = numbers.remove(id);
+        if (number == null || unindexed.remove(id)) {
+            return;
+        }
+        for (int i = 0; i + GRAM <= number.length(); i++) {
+            Long key = key(number, i);
+            Postings list = postings.get(key);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    private static boolean containsAll(List<Postings> lists, int id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalize(String number) {
+        return number.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 127) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long key(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    /**
+     * Sorted, growable list of ids. Ids are mostly added in increasing order, so adding is usually an append.
+     */
+    private static class Postings {
+        private int[] ids = new int[2];
+        private int size;
+
+        void add(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.discovery.channel.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binds one pooled connection to the current thread for the length of a request or operation.
+ *
+ * While a unit of work is open, DbConnect.getConnection() hands out the same connection wrapped so that
+ * close() is a no-op, so the try-with-resources blocks in the controllers keep working unchanged.
+ * The connection is borrowed lazily on first use and returned to the pool when the outermost scope closes.
+ *
+ * Multi-step writes run inside inTransaction()/runInTransaction(). Nested calls join the outer transaction,
+ * which commits once when the outermost one finishes and rolls back if it throws.
+ */
+public class UnitOfWork implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UnitOfWork.class);
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private Connection connection;
+    private Connection handle;
+    private int scopes;
+    private boolean inTransaction;
+    private final List<Runnable> afterCommit = new ArrayList<>();
+
+    @FunctionalInterface
+    public interface Work<T> {
+        T execute() throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        void execute() throws SQLException;
+    }
+
+    // Use begin()
+    private UnitOfWork() {
+    }
+
+    /**
+     * Open a unit of work on the current thread, or join the one already open
+     *
+     * @return the unit of work; close it to leave the scope
+     */
+    public static UnitOfWork begin() {
+        UnitOfWork unit = CURRENT.get();
+        if (unit == null) {
+            unit = new UnitOfWork();
+            CURRENT.set(unit);
+        }
+        unit.scopes++;
+        return unit;
+    }
+
+    /**
+     * @return the unit of work bound to the current thread, or null if there is none
+     */
+    static UnitOfWork current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Run work in a transaction on the current unit of work, opening one if needed
+     *
+     * @param work
+     * @return the result of the work
+     * @throws SQLException
+     */
+    public static <T> T inTransaction(Work<T> work) throws SQLException {
+        try (UnitOfWork unit = begin()) {
+            return unit.transaction(work);
+        }
+    }
+
+    public static void runInTransaction(Action action) throws SQLException {
+        inTransaction(() -> {
+            action.execute();
+            return null;
+        });
+    }
+
+    /**
+     * Run the callback once the current transaction commits. It is dropped if the transaction rolls back,
+     * and runs immediately when there is no transaction.
+     *
+     * @param callback
+     */
+    public static void afterCommit(Runnable callback) {
+        UnitOfWork unit = CURRENT.get();
+        if (unit != null && unit.inTransaction) {
+            unit.afterCommit.add(callback);
+        } else {
+            callback.run();
+        }
+    }
+
+    /**
+     * @return the connection of this unit of work, borrowing it from the pool on first use
+     */
+    Connection getConnection() {
+        if (handle == null) {
+            connection = DbConnect.getPooledConnection();
+            if (connection == null) {
+                return null;
+            }
+            handle = nonClosing(connection);
+        }
+        return handle;
+    }
+
+    @Override
+    public void close() {
+        if (--scopes > 0) {
+            return;
+        }
+        CURRENT.remove();
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                LOGGER.error("Failed to return connection to the pool", e);
+            }
+            connection = null;
+            handle = null;
+        }
+    }
+
+    private <T> T transaction(Work<T> work) throws SQLException {
+        if (inTransaction) {
+            return work.execute();
+        }
+        Connection conn = getConnection();
+        if (conn == null) {
+            throw new SQLException("Unable to get a connection from the connection pool.");
+        }
+
+        boolean committed = false;
+        conn.setAutoCommit(false);
+        inTransaction = true;
+        try {
+            T result = work.execute();
+            conn.commit();
+            committed = true;
+            return result;
+        } finally {
+            inTransaction = false;
+            if (!committed) {
+                rollback(conn);
+            }
+            restoreAutoCommit(conn);
+            runAfterCommit(committed);
+        }
+    }
+
+    private void rollback(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            LOGGER.error("Failed to roll back transaction", e);
+        }
+    }
+
+    // Must not hide the exception of the work, nor skip the callbacks of a transaction that committed
+    private void restoreAutoCommit(Connection conn) {
+        try {
+            conn.setAutoCommit(true);
+        } catch (SQLException e) {
+            LOGGER.error("Failed to restore auto-commit", e);
+        }
+    }
+
+    private void runAfterCommit(boolean committed) {
+        List<Runnable> callbacks = new ArrayList<>(afterCommit);
+        afterCommit.clear();
+        if (!committed) {
+            return;
+        }
+        for (Runnable callback : callbacks) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("After commit callback failed", e);
+            }
+        }
+    }
+
+    /**
+     * Wrap the connection so that the controllers closing it does not return it to the pool
+     */
+    private static Connection nonClosing(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName())) {
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
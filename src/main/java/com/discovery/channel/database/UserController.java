@@ -11,6 +11,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 public class UserController {
 
@@ -64,6 +67,23 @@ public class UserController {
         }
     }
 
+    /**
+     * Get the display names of users, "<first name> <last name>", in one query per id chunk
+     *
+     * @param ids user table ids
+     * @return names by id; ids without a user are left out
+     * @throws SQLException
+     */
+    private static final String GET_USER_NAMES_BY_IDS =
+            "SELECT Id, FirstName, LastName " +
+            "FROM users WHERE Id IN (%s)";
+    public static Map<Integer, String> getUserNamesByIds(Collection<Integer> ids) throws SQLException {
+        Map<Integer, String> names = new HashMap<>();
+        MultiGet.forEachRow(GET_USER_NAMES_BY_IDS, ids,
+                rs -> names.put(rs.getInt("Id"), rs.getString("FirstName") + " " + rs.getString("LastName")));
+        return names;
+    }
+
     /**
      * Load user roleId, role, locationId, location
      *
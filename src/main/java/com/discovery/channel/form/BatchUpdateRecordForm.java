@@ -0,0 +1,28 @@
+package com.discovery.channel.form;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * An update to one record in a batch: the id of the record and its new values
+ */
+@Getter
+public class BatchUpdateRecordForm extends UpdateRecordForm {
+    private int id;
+
+    @JsonCreator
+    public BatchUpdateRecordForm(@JsonProperty(value = "id", required = true) int id,
+                                 @JsonProperty("title") String title,
+                                 @JsonProperty("scheduleId") int scheduleId,
+                                 @JsonProperty("classifications") List<Integer> classifications,
+                                 @JsonProperty("consignmentCode") String consignmentCode,
+                                 @JsonProperty("notes") String notes,
+                                 @JsonProperty("stateId") int stateId,
+                                 @JsonProperty("containerId") int containerId) {
+        super(title, scheduleId, classifications, consignmentCode, notes, stateId, containerId);
+        this.id = id;
+    }
+}
@@ -0,0 +1,43 @@
+package com.discovery.channel.interceptor;
+
+import com.discovery.channel.database.UnitOfWork;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Opens a unit of work for each request so that all database calls made while handling it
+ * share one pooled connection.
+ *
+ * Async handlers, such as those returning a StreamingResponseBody, get no afterCompletion on the dispatch that
+ * started them; their unit is closed in afterConcurrentHandlingStarted so it is not left bound to the thread.
+ */
+public class UnitOfWorkInterceptor extends HandlerInterceptorAdapter {
+    static final String UNIT_OF_WORK_ATTRIBUTE = UnitOfWorkInterceptor.class.getName() + ".unitOfWork";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(UNIT_OF_WORK_ATTRIBUTE, UnitOfWork.begin());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        closeUnitOfWork(request);
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The response is written on another thread, which does not use this unit
+        closeUnitOfWork(request);
+    }
+
+    private static void closeUnitOfWork(HttpServletRequest request) {
+        UnitOfWork unit = (UnitOfWork) request.getAttribute(UNIT_OF_WORK_ATTRIBUTE);
+        if (unit != null) {
+            request.setAttribute(UNIT_OF_WORK_ATTRIBUTE, null);
+            unit.close();
+        }
+    }
+}
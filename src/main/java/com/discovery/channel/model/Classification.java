@@ -91,8 +91,7 @@ public class Classification {
 
         for (int i = 0; i < classifications.size() - 1; i ++) {
             Classification classification = classifications.get(i);
-            List<Integer> validChildren = ClassificationController.findChildrenClassificationIds(classification.id);
-            if (!validChildren.contains(classifications.get(i + 1).id)) {
+            if (!ClassificationController.isValidChildClassification(classification.id, classifications.get(i + 1).id)) {
                 LOGGER.info("Classification {} is not a valid child classification for {}", classifications.get(i + 1).id, classification.id);
                 return false;
             }
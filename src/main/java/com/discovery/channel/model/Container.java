@@ -1,6 +1,7 @@
 package com.discovery.channel.model;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
@@ -13,6 +14,7 @@ import java.util.List;
 @Getter
 @Setter
 @AllArgsConstructor
+@JsonFilter(Projection.FILTER)
 public class Container implements Document{
 
     private int containerId;
@@ -33,6 +35,9 @@ public class Container implements Document{
     private int typeId;
     private String type;
     private String notes;
+    // Notes are only loaded for a single container; lists carry these instead
+    private boolean hasNotes;
+    private int notesLength;
     @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
     private List<Integer> childRecordIds;
 
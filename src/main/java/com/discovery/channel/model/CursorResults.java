@@ -0,0 +1,19 @@
+package com.discovery.channel.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A page of results with the cursor of the page after it
+ */
+@Getter
+@AllArgsConstructor
+public class CursorResults<T> {
+    private List<T> results;
+    // Null on the last page
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+}
@@ -0,0 +1,37 @@
+package com.discovery.channel.model;
+
+import com.discovery.channel.exception.IllegalArgumentException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A range of the notes of a record or container. Offsets and lengths count characters (code points).
+ */
+@Getter
+@AllArgsConstructor
+public class Notes {
+    private int offset;
+    private int length;
+    private int totalLength;
+    private String text;
+
+    /**
+     * @param notes the whole notes, or null if there are none
+     * @param offset first character of the range
+     * @param length number of characters in the range, or null for the rest of the notes
+     * @return the range, cut short at the end of the notes
+     */
+    public static Notes range(String notes, int offset, Integer length) {
+        if (offset < 0 || (length != null && length < 0)) {
+            throw new IllegalArgumentException("Notes offset and length must not be negative.");
+        }
+        String text = notes == null ? "" : notes;
+        int totalLength = text.codePointCount(0, text.length());
+        int start = Math.min(offset, totalLength);
+        int end = length == null ? totalLength : (int) Math.min((long) start + length, totalLength);
+
+        int startIndex = text.offsetByCodePoints(0, start);
+        int endIndex = text.offsetByCodePoints(startIndex, end - start);
+        return new Notes(start, end - start, totalLength, text.substring(startIndex, endIndex));
+    }
+}
@@ -1,5 +1,6 @@
 package com.discovery.channel.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
@@ -9,6 +10,15 @@ import java.util.List;
 @AllArgsConstructor
 public class PagedResults<T> {
     private int page;
-    private int pageCount;
+    // Null on later pages in cursor mode, where the total is not counted again
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer pageCount;
     private List<T> results;
+    // Only set in cursor mode; null on the last page
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    public PagedResults(int page, Integer pageCount, List<T> results) {
+        this(page, pageCount, results, null);
+    }
 }
@@ -0,0 +1,101 @@
+package com.discovery.channel.model;
+
+import com.discovery.channel.exception.IllegalArgumentException;
+import com.fasterxml.jackson.databind.ser.PropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The parts of records and containers a response asks for: fields= lists the properties to include, and
+ * expand= adds optional parts that are left out by default. Controllers use it to select only the columns and
+ * run only the loading steps that the response needs.
+ */
+public class Projection {
+    // Name of the Jackson filter on Record and Container
+    public static final String FILTER = "projection";
+    public static final String NOTES = "notes";
+
+    // Always included, so documents can be told apart and fetched again
+    private static final Set<String> IDENTITY = new HashSet<>(Arrays.asList("id", "containerId"));
+    private static final Set<String> EXPANDABLE = Collections.singleton(NOTES);
+
+    public static final Projection ALL = new Projection(null, Collections.emptySet());
+    // Enough to check that a document exists and that the user may see it
+    public static final Projection ID_ONLY = new Projection(IDENTITY, Collections.emptySet());
+
+    // null for all properties
+    private final Set<String> fields;
+    private final Set<String> expand;
+
+    private Projection(Set<String> fields, Set<String> expand) {
+        this.fields = fields;
+        this.expand = expand;
+    }
+
+    /**
+     * @param fields comma separated property names, or null or empty for all properties
+     * @param expand comma separated optional parts, or null or empty for none
+     * @return
+     */
+    public static Projection of(String fields, String expand) {
+        Set<String> fieldSet = split(fields);
+        Set<String> expandSet = split(expand);
+        for (String part : expandSet) {
+            if (!EXPANDABLE.contains(part)) {
+                throw new IllegalArgumentException(String.format("Cannot expand %s. Expandable: %s.", part, EXPANDABLE));
+            }
+        }
+        if (fieldSet.isEmpty() && expandSet.isEmpty()) {
+            return ALL;
+        }
+        if (!fieldSet.isEmpty()) {
+            fieldSet.addAll(IDENTITY);
+            // An expanded part is wanted in the response too
+            fieldSet.addAll(expandSet);
+        }
+        return new Projection(fieldSet.isEmpty() ? null : fieldSet, expandSet);
+    }
+
+    public boolean includes(String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    public boolean includesAny(String... fields) {
+        for (String field : fields) {
+            if (includes(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean expands(String part) {
+        return expand.contains(part);
+    }
+
+    /**
+     * @return the Jackson filter leaving out the properties that were not asked for
+     */
+    public PropertyFilter toFilter() {
+        return fields == null ?
+                SimpleBeanPropertyFilter.serializeAll() :
+                SimpleBeanPropertyFilter.filterOutAllExcept(fields);
+    }
+
+    private static Set<String> split(String list) {
+        Set<String> parts = new LinkedHashSet<>();
+        if (list != null) {
+            for (String part : list.split(",")) {
+                if (!part.trim().isEmpty()) {
+                    parts.add(part.trim());
+                }
+            }
+        }
+        return parts;
+    }
+}
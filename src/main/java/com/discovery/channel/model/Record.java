@@ -2,6 +2,7 @@ package com.discovery.channel.model;
 import com.discovery.channel.database.RecordTypeController;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
@@ -18,6 +19,7 @@ import java.util.List;
 @Getter
 @Setter
 @AllArgsConstructor
+@JsonFilter(Projection.FILTER)
 public class Record implements Document{
     // directly accessible from records table
     private int id;
@@ -44,6 +46,9 @@ public class Record implements Document{
     @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
     private List<Integer> classIds;
     private String notes;
+    // Notes are only loaded for a single record; lists carry these instead
+    private boolean hasNotes;
+    private int notesLength;
 
 
     //Todo convert date to proper format
@@ -4,27 +4,9 @@ import com.discovery.channel.exception.IllegalArgumentException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Random;
-
 public class RecordNumber {
     private static final Logger LOGGER = LoggerFactory.getLogger(RecordNumber.class);
 
-    private static final Random RAN = new Random(System.currentTimeMillis());
-
-    /**
-     * Generate three digit random number and convert it to a string
-     * @return
-     */
-    public static String generateRandomNumber(int digit){
-        int randomNum = RAN.nextInt(999);
-        LOGGER.debug("Generated number " + randomNum);
-        if (digit == 3) {
-            return String.format("%03d", randomNum);
-        }else {
-            return String.format("%04d", randomNum);
-        }
-    }
-
     public enum NUMBER_PATTERN{
         CLIENT("KKK-CLIENT.ggg", "[a-zA-Z]{3}-CLIENT"),
         TASK("KKK-TASK-XXXX", "[a-zA-Z]{3}-TASK-[a-zA-Z0-9]{4}"),
@@ -91,19 +73,51 @@ public class RecordNumber {
 
 
         /**
-         * Some patterns contain "ggg" auto filled fields; Populate it with a random numeric string
+         * Some patterns contain "ggg" auto filled fields
+         *
+         * @return
+         */
+        public boolean hasAutoGenField() {
+            return patternStr.contains(AUTO_GEN_PLACE_HOLDER);
+        }
+
+        /**
+         * The number entered for a pattern with an auto filled field, followed by the separator before the field,
+         * e.g. "EDM-2018/". Generated values are unique per prefix.
          *
          * @param recordNumber
          * @return
          */
-        public String fillAutoGenField(String recordNumber) {
+        public String getAutoGenPrefix(String recordNumber) {
             int index = patternStr.indexOf(AUTO_GEN_PLACE_HOLDER);
-            if (index < 0 ) {
+            return recordNumber + patternStr.charAt(index - 1);
+        }
+
+        public int getAutoGenDigits() {
+            return patternStr.length() - patternStr.indexOf(AUTO_GEN_PLACE_HOLDER);
+        }
+
+        /**
+         * @return the largest value that fits in the auto filled field
+         */
+        public int getMaxAutoGenValue() {
+            return (int) Math.pow(10, getAutoGenDigits()) - 1;
+        }
+
+        /**
+         * Populate the "ggg" auto filled field with a generated value
+         *
+         * @param recordNumber
+         * @param value
+         * @return
+         */
+        public String fillAutoGenField(String recordNumber, int value) {
+            if (!hasAutoGenField()) {
                 return recordNumber;
             }
-            char separator = patternStr.charAt(index - 1);
-            int digit = patternStr.length() - index;
-            return recordNumber + separator + generateRandomNumber(digit);
+            String filled = getAutoGenPrefix(recordNumber) + String.format("%0" + getAutoGenDigits() + "d", value);
+            LOGGER.debug("Generated number {}", filled);
+            return filled;
         }
 
         /**
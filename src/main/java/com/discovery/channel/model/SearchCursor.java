@@ -0,0 +1,73 @@
+package com.discovery.channel.model;
+
+import com.discovery.channel.exception.IllegalArgumentException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a search: the last document returned, and the ordinal of the page it was on.
+ * Search results are ordered by records then containers, each by (Number, Id).
+ *
+ * Clients only ever see the encoded form and pass it back unchanged.
+ */
+@Getter
+@AllArgsConstructor
+public class SearchCursor {
+    private static final String SEPARATOR = ":";
+
+    public enum DocumentType {
+        RECORD("R"), CONTAINER("C");
+
+        String code;
+        DocumentType(String code) {
+            this.code = code;
+        }
+
+        public static DocumentType fromCode(String code) {
+            for (DocumentType type : values()) {
+                if (type.code.equals(code)) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    private DocumentType type;
+    private String number;
+    private int id;
+    private int page;
+
+    public String encode() {
+        // Number goes last since it may contain the separator
+        String raw = type.code + SEPARATOR + page + SEPARATOR + id + SEPARATOR + number;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor returned by a previous search
+     *
+     * @param cursor
+     * @return the cursor, or null for an empty cursor, meaning the first page
+     */
+    public static SearchCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 4);
+            DocumentType type = DocumentType.fromCode(parts[0]);
+            if (parts.length != 4 || type == null) {
+                throw new IllegalArgumentException(String.format("Invalid search cursor: %s.", cursor));
+            }
+            return new SearchCursor(type, parts[3], Integer.parseInt(parts[2]), Integer.parseInt(parts[1]));
+        } catch (java.lang.IllegalArgumentException e) {
+            // Also covers NumberFormatException
+            throw new IllegalArgumentException(String.format("Invalid search cursor: %s.", cursor));
+        }
+    }
+}
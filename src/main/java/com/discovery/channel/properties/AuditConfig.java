@@ -0,0 +1,27 @@
+package com.discovery.channel.properties;
+
+import com.discovery.channel.audit.AuditLogger;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+@Configuration
+public class AuditConfig {
+
+    /**
+     * Write audit logs in the background while the application is running
+     */
+    @PostConstruct
+    public void startAuditLogWriter() {
+        AuditLogger.start();
+    }
+
+    /**
+     * Make sure queued audit logs reach the database before the application exits
+     */
+    @PreDestroy
+    public void stopAuditLogWriter() {
+        AuditLogger.stop();
+    }
+}
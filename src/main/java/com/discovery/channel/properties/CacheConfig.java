@@ -0,0 +1,34 @@
+package com.discovery.channel.properties;
+
+import com.discovery.channel.database.ReferenceDataCache;
+import com.discovery.channel.database.SearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+import java.sql.SQLException;
+
+@Configuration
+public class CacheConfig {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheConfig.class);
+
+    /**
+     * Warm the reference data cache and the search index at startup so the first requests do not pay for loading them
+     */
+    @PostConstruct
+    public void warmCaches() {
+        try {
+            ReferenceDataCache.load();
+        } catch (SQLException e) {
+            // Not fatal, the cache loads on first use instead
+            LOGGER.error("Failed to load reference data at startup", e);
+        }
+        try {
+            SearchIndex.load();
+        } catch (SQLException e) {
+            // Not fatal, search uses LIKE until the index is rebuilt
+            LOGGER.error("Failed to load search index at startup", e);
+        }
+    }
+}
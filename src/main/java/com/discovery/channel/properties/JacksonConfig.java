@@ -0,0 +1,21 @@
+package com.discovery.channel.properties;
+
+import com.discovery.channel.model.Projection;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Records and containers name the projection filter; responses without fields= serialize every property
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer projectionFilter() {
+        return builder -> builder.filters(new SimpleFilterProvider()
+                .addFilter(Projection.FILTER, SimpleBeanPropertyFilter.serializeAll()));
+    }
+}
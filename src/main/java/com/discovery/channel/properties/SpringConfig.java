@@ -1,6 +1,7 @@
 package com.discovery.channel.properties;
 
 import com.discovery.channel.interceptor.LoggingInterceptor;
+import com.discovery.channel.interceptor.UnitOfWorkInterceptor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
@@ -10,5 +11,6 @@ public class SpringConfig extends WebMvcConfigurerAdapter {
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(new LoggingInterceptor());
+        registry.addInterceptor(new UnitOfWorkInterceptor());
     }
 }
@@ -0,0 +1,153 @@
+package com.discovery.channel.rest;
+
+import com.discovery.channel.database.ReferenceDataCache;
+import com.discovery.channel.properties.DefaultProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Reference data lists rendered to JSON once per ReferenceDataCache version and kept as plain and gzipped bytes,
+ * each with a strong ETag. A list is only rendered again after the cache loads changed reference tables;
+ * clients that already hold the current list get 304 Not Modified.
+ */
+@Component
+class ReferenceDataResponses {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReferenceDataResponses.class);
+    private static final DefaultProperties PROPERTIES = DefaultProperties.getInstance();
+
+    private static final int DEFAULT_MAX_AGE_SECONDS = 60;
+    private static final String CACHE_CONTROL = "public, max-age=" + getMaxAgeSeconds();
+    private static final MediaType JSON_UTF8 = MediaType.parseMediaType("application/json;charset=UTF-8");
+
+    interface Loader {
+        List<?> load() throws SQLException;
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Rendering> renderings = new ConcurrentHashMap<>();
+
+    @Autowired
+    ReferenceDataResponses(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Answer a request for a reference data list from its rendering
+     *
+     * @param name the list, used as the cache key
+     * @param loader reads the list from the reference data cache
+     * @param ifNoneMatch If-None-Match header of the request, or null
+     * @param acceptEncoding Accept-Encoding header of the request, or null
+     * @return the list, gzipped if the client accepts it, or 304 if the client's copy is current
+     * @throws SQLException
+     * @throws IOException
+     */
+    ResponseEntity<byte[]> respond(String name, Loader loader, String ifNoneMatch, String acceptEncoding)
+            throws SQLException, IOException {
+        Rendering rendering = getRendering(name, loader);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        boolean notModified = rendering.matches(ifNoneMatch);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .header(HttpHeaders.ETAG, gzip ? rendering.gzipETag : rendering.eTag)
+                .header(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (notModified) {
+            return response.build();
+        }
+        response.contentType(JSON_UTF8);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(rendering.gzip);
+        }
+        return response.body(rendering.plain);
+    }
+
+    private Rendering getRendering(String name, Loader loader) throws SQLException, IOException {
+        // Read the version before the list, so a rendering is never labelled newer than the data it holds
+        long version = ReferenceDataCache.getVersion();
+        Rendering rendering = renderings.get(name);
+        if (rendering == null || rendering.version != version) {
+            rendering = new Rendering(version, objectMapper.writeValueAsBytes(loader.load()));
+            renderings.put(name, rendering);
+            LOGGER.info("Rendered {} for reference data version {}: {} bytes, {} gzipped",
+                    name, version, rendering.plain.length, rendering.gzip.length);
+        }
+        return rendering;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static int getMaxAgeSeconds() {
+        int maxAge = PROPERTIES.getIntProperty("CACHE.REFERENCE_DATA.MAX_AGE_SECONDS");
+        return maxAge < 0 ? DEFAULT_MAX_AGE_SECONDS : maxAge;
+    }
+
+    /**
+     * One list serialized at one reference data version. The ETag is a digest of the JSON, so it only changes
+     * when the content does; the gzipped bytes are a different representation and get their own tag.
+     */
+    private static class Rendering {
+        private final long version;
+        private final byte[] plain;
+        private final byte[] gzip;
+        private final String eTag;
+        private final String gzipETag;
+
+        Rendering(long version, byte[] plain) throws IOException {
+            this.version = version;
+            this.plain = plain;
+            ByteArrayOutputStream gzipped = new ByteArrayOutputStream(plain.length / 4 + 32);
+            try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+                out.write(plain);
+            }
+            this.gzip = gzipped.toByteArray();
+            String digest = DigestUtils.md5DigestAsHex(plain);
+            this.eTag = "\"" + digest + "\"";
+            this.gzipETag = "\"" + digest + "-gzip\"";
+        }
+
+        boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                // If-None-Match compares weakly
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(eTag) || tag.equals(gzipETag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
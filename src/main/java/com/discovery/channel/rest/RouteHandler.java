@@ -1,44 +1,100 @@
 package com.discovery.channel.rest;
 
-import com.discovery.channel.audit.AuditLogEntry;
+import com.discovery.channel.audit.AuditLogQuery;
 import com.discovery.channel.audit.AuditLogger;
+import com.discovery.channel.audit.HistoryEntry;
+import com.discovery.channel.authenticator.Authenticator;
+import com.discovery.channel.authenticator.PrincipalCache;
+import com.discovery.channel.authenticator.Role;
 import com.discovery.channel.database.*;
+import com.discovery.channel.exception.AuthenticationException;
+import com.discovery.channel.form.BatchUpdateRecordForm;
 import com.discovery.channel.form.ContainersForm;
 import com.discovery.channel.form.RecordsForm;
 import com.discovery.channel.form.UpdateRecordForm;
 import com.discovery.channel.model.*;
 
 import com.discovery.channel.response.BatchResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 public class RouteHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(RouteHandler.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ReferenceDataResponses referenceDataResponses;
+
     public RouteHandler(){
     }
+
+    /**
+     * Write only the fields of records and containers that were asked for with fields=
+     */
+    private static MappingJacksonValue project(Object body, Projection projection) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(new SimpleFilterProvider().addFilter(Projection.FILTER, projection.toFilter()));
+        return value;
+    }
+
+    @FunctionalInterface
+    private interface JsonWriter {
+        void write(JsonGenerator generator) throws SQLException, IOException;
+    }
+
+    /**
+     * Write a JSON response straight to the servlet output stream as it is read from the database
+     */
+    private ResponseEntity<StreamingResponseBody> stream(JsonWriter writer) {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                writer.write(generator);
+            } catch (SQLException e) {
+                LOGGER.error("Failed to stream response", e);
+                throw new IOException(e);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(body);
+    }
+
     /**
      * Single record get by ID
      *
      * @param  id
+     * @param  fields comma separated fields to return, all by default
+     * @param  expand comma separated optional parts to include, such as notes
      * @return a single record
      */
     @RequestMapping(
             value = "records/{id}",
             params = {"userId"},
             method = RequestMethod.GET)
-    public Record getRecordById(@PathVariable("id") Integer id,
-                                @RequestParam("userId") int userId) throws SQLException {
-        return RecordController.getRecordById(id, userId);
+    public MappingJacksonValue getRecordById(@PathVariable("id") Integer id,
+                                             @RequestParam("userId") int userId,
+                                             @RequestParam(value="fields", required=false) String fields,
+                                             @RequestParam(value="expand", required=false) String expand) throws SQLException {
+        Projection projection = Projection.of(fields, expand);
+        return project(RecordController.getRecordById(id, userId, projection), projection);
     }
 
 
@@ -53,8 +109,11 @@ public class RouteHandler {
             params = { "userId"},
             method = RequestMethod.GET)
     @ResponseBody
-    public List<Record> getAllRecords(@RequestParam("userId") int userId) throws SQLException{
-        return RecordController.getAllRecords(userId);
+    public MappingJacksonValue getAllRecords(@RequestParam("userId") int userId,
+                                             @RequestParam(value="fields", required=false) String fields,
+                                             @RequestParam(value="expand", required=false) String expand) throws SQLException{
+        Projection projection = Projection.of(fields, expand);
+        return project(RecordController.getAllRecords(userId, projection), projection);
 
     }
 
@@ -71,14 +130,43 @@ public class RouteHandler {
             method = RequestMethod.GET)
     @ResponseBody
 
-    public PagedResults<Document> searchByNumber(@RequestParam("userId") int userId,
+    public MappingJacksonValue searchByNumber(@RequestParam("userId") int userId,
                                               @RequestParam("num") String num,
                                               @RequestParam(value="record", required=false, defaultValue="false") Boolean record,
                                               @RequestParam(value="container", required=false, defaultValue="false") Boolean container,
                                               @RequestParam(value="page", required=false, defaultValue="1") int page,
-                                              @RequestParam(value="pageSize", required=false, defaultValue="20") int pageSize)
+                                              @RequestParam(value="pageSize", required=false, defaultValue="20") int pageSize,
+                                              @RequestParam(value="fields", required=false) String fields,
+                                              @RequestParam(value="expand", required=false) String expand)
                                               throws SQLException{
-        return RecordController.getByNumber(num, record, container, page, pageSize, userId);
+        Projection projection = Projection.of(fields, expand);
+        return project(RecordController.getByNumber(num, record, container, page, pageSize, userId, projection),
+                projection);
+    }
+
+    /**
+     * Search records by record number, paging with a cursor. Pass an empty cursor for the first page,
+     * then the nextCursor of each page for the one after it.
+     *
+     * @param  num
+     * @return a page of records and/or containers, with the cursor of the next page
+     */
+    @RequestMapping(
+            value = "search",
+            params = { "userId" , "num", "cursor"},
+            method = RequestMethod.GET)
+    public MappingJacksonValue searchByNumberAfter(@RequestParam("userId") int userId,
+                                                      @RequestParam("num") String num,
+                                                      @RequestParam("cursor") String cursor,
+                                                      @RequestParam(value="record", required=false, defaultValue="false") Boolean record,
+                                                      @RequestParam(value="container", required=false, defaultValue="false") Boolean container,
+                                                      @RequestParam(value="pageSize", required=false, defaultValue="20") int pageSize,
+                                                      @RequestParam(value="fields", required=false) String fields,
+                                                      @RequestParam(value="expand", required=false) String expand)
+                                                      throws SQLException{
+        Projection projection = Projection.of(fields, expand);
+        return project(RecordController.getByNumberAfter(num, record, container, cursor, pageSize, userId, projection),
+                projection);
     }
 
     /**
@@ -98,6 +186,22 @@ public class RouteHandler {
         return new ResponseEntity(RecordController.createRecord(record, userId), HttpStatus.CREATED);
     }
 
+    /**
+     * Create many records at once
+     *
+     * @param records
+     * @return the outcome of each record, in the order given
+     */
+    @RequestMapping(
+            value = "records/batch",
+            params = {"userId"},
+            method = RequestMethod.POST,
+            consumes = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public BatchResponse createRecords(@RequestParam("userId") int userId,
+                                       @RequestBody List<Record> records) throws SQLException {
+        return RecordController.createRecords(records, userId);
+    }
+
     //START OF Facilitating endpoints for creating records
 
     /**
@@ -109,8 +213,11 @@ public class RouteHandler {
             value = "classifications",
             method = RequestMethod.GET)
     @ResponseBody
-    public List<Classification> getRootClassifications() throws SQLException{
-        return ClassificationController.getRootClassifications();
+    public ResponseEntity<byte[]> getRootClassifications(@RequestHeader(value="If-None-Match", required=false) String ifNoneMatch,
+                                                         @RequestHeader(value="Accept-Encoding", required=false) String acceptEncoding)
+            throws SQLException, IOException {
+        return referenceDataResponses.respond("classifications", ClassificationController::getRootClassifications,
+                ifNoneMatch, acceptEncoding);
 
     }
 
@@ -134,8 +241,11 @@ public class RouteHandler {
             value = "recordtypes",
             method = RequestMethod.GET)
     @ResponseBody
-    public List<RecordType> getAllRecordTypes() throws SQLException{
-        return RecordTypeController.getAllRecordTypes();
+    public ResponseEntity<byte[]> getAllRecordTypes(@RequestHeader(value="If-None-Match", required=false) String ifNoneMatch,
+                                                    @RequestHeader(value="Accept-Encoding", required=false) String acceptEncoding)
+            throws SQLException, IOException {
+        return referenceDataResponses.respond("recordtypes", RecordTypeController::getAllRecordTypes,
+                ifNoneMatch, acceptEncoding);
 
     }
 
@@ -148,8 +258,11 @@ public class RouteHandler {
             value = "retentionschedules",
             method = RequestMethod.GET)
     @ResponseBody
-    public List<RetentionSchedule> getAllRententionSchedules() throws SQLException{
-        return RetentionScheduleController.getAllRetentionSchedules();
+    public ResponseEntity<byte[]> getAllRententionSchedules(@RequestHeader(value="If-None-Match", required=false) String ifNoneMatch,
+                                                            @RequestHeader(value="Accept-Encoding", required=false) String acceptEncoding)
+            throws SQLException, IOException {
+        return referenceDataResponses.respond("retentionschedules", RetentionScheduleController::getAllRetentionSchedules,
+                ifNoneMatch, acceptEncoding);
 
     }
 
@@ -162,14 +275,101 @@ public class RouteHandler {
             value = "recordstates",
             method = RequestMethod.GET)
     @ResponseBody
-    public List<State> getAllRecordStates() throws SQLException{
-        return StateController.getAllStates();
+    public ResponseEntity<byte[]> getAllRecordStates(@RequestHeader(value="If-None-Match", required=false) String ifNoneMatch,
+                                                     @RequestHeader(value="Accept-Encoding", required=false) String acceptEncoding)
+            throws SQLException, IOException {
+        return referenceDataResponses.respond("recordstates", StateController::getAllStates,
+                ifNoneMatch, acceptEncoding);
 
     }
 
 
     // END OF Facilitating endpoints for creating records
 
+    /**
+     * Get reference data cache statistics
+     * @return
+     */
+    @RequestMapping(
+            value = "referencedata/stats",
+            method = RequestMethod.GET)
+    public Map<String, Object> getReferenceDataStats() {
+        return ReferenceDataCache.getStats();
+    }
+
+    /**
+     * Force the reference data cache to reload on next use, e.g. after editing locations or schedules
+     * @param userId
+     * @return
+     */
+    @RequestMapping(
+            value = "referencedata/refresh",
+            params = {"userId"},
+            method = RequestMethod.POST)
+    public ResponseEntity<?> refreshReferenceData(@RequestParam("userId") int userId) {
+        if (!Authenticator.authenticate(userId, Role.ADMINISTRATOR)) {
+            throw new AuthenticationException(String.format("User %d is not authorized to refresh reference data", userId));
+        }
+        ReferenceDataCache.invalidate();
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    /**
+     * Get principal cache statistics
+     * @return
+     */
+    @RequestMapping(
+            value = "principals/stats",
+            method = RequestMethod.GET)
+    public Map<String, Object> getPrincipalStats() {
+        return PrincipalCache.getStats();
+    }
+
+    /**
+     * Drop cached principals, e.g. after changing user roles or locations
+     * @param userId
+     * @return
+     */
+    @RequestMapping(
+            value = "principals/refresh",
+            params = {"userId"},
+            method = RequestMethod.POST)
+    public ResponseEntity<?> refreshPrincipals(@RequestParam("userId") int userId) {
+        if (!Authenticator.authenticate(userId, Role.ADMINISTRATOR)) {
+            throw new AuthenticationException(String.format("User %d is not authorized to refresh principals", userId));
+        }
+        PrincipalCache.invalidateAll();
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    /**
+     * Get search index statistics
+     * @return
+     */
+    @RequestMapping(
+            value = "search/index/stats",
+            method = RequestMethod.GET)
+    public Map<String, Object> getSearchIndexStats() {
+        return SearchIndex.getStats();
+    }
+
+    /**
+     * Rebuild the search index, e.g. after numbers were changed directly in the database
+     * @param userId
+     * @return
+     */
+    @RequestMapping(
+            value = "search/index/refresh",
+            params = {"userId"},
+            method = RequestMethod.POST)
+    public ResponseEntity<?> refreshSearchIndex(@RequestParam("userId") int userId) throws SQLException {
+        if (!Authenticator.authenticate(userId, Role.ADMINISTRATOR)) {
+            throw new AuthenticationException(String.format("User %d is not authorized to rebuild the search index", userId));
+        }
+        SearchIndex.load();
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
     @RequestMapping(
             value = "records",
             params = {"userId"},
@@ -178,6 +378,22 @@ public class RouteHandler {
         return RecordController.deleteRecords(userId, form);
     }
 
+    /**
+     * Update many records at once
+     *
+     * @param updateForms the id and new values of each record
+     * @return the outcome of each update, in the order given
+     */
+    @RequestMapping(
+            value = "records/batch",
+            params = {"userId"},
+            method = RequestMethod.PUT,
+            consumes = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public BatchResponse updateRecords(@RequestParam("userId") int userId,
+                                       @RequestBody List<BatchUpdateRecordForm> updateForms) throws SQLException {
+        return RecordController.updateRecords(updateForms, userId);
+    }
+
     /**
      * Update a record by record id
      *
@@ -205,9 +421,12 @@ public class RouteHandler {
             value = "containers/{id}",
             params = {"userId"},
             method = RequestMethod.GET)
-    public Container getContainerById(@PathVariable("id") Integer id, @RequestParam("userId") int userId) throws SQLException{
+    public MappingJacksonValue getContainerById(@PathVariable("id") Integer id, @RequestParam("userId") int userId,
+                                                @RequestParam(value="fields", required=false) String fields,
+                                                @RequestParam(value="expand", required=false) String expand) throws SQLException{
         LOGGER.info("Searching for container with id {}", id);
-        return ContainerController.getContainerById(id, userId);
+        Projection projection = Projection.of(fields, expand);
+        return project(ContainerController.getContainerById(id, userId, projection), projection);
     }
 
     /**
@@ -308,20 +527,174 @@ public class RouteHandler {
             value = "volume",
             params = {"num", "userId"},
             method = RequestMethod.GET)
-    public List<Record> getVolumesByNumber(@RequestParam("num") String num,
-                                           @RequestParam("userId") int userId) throws SQLException {
+    public MappingJacksonValue getVolumesByNumber(@RequestParam("num") String num,
+                                                  @RequestParam("userId") int userId,
+                                                  @RequestParam(value="fields", required=false) String fields,
+                                                  @RequestParam(value="expand", required=false) String expand) throws SQLException {
         LOGGER.info("Searching volumes related to number {}", num);
-        return RecordController.getVolumesByNumber(num, userId);
+        Projection projection = Projection.of(fields, expand);
+        return project(RecordController.getVolumesByNumber(num, userId, projection), projection);
+    }
+
+    /**
+     * Stream the volumes related to a record Number, in volume order. Each volume is written as it is read,
+     * so any number of volumes is returned in constant memory. Volumes carry hasNotes and notesLength but not
+     * their notes.
+     *
+     * @return a list of volumes matching the given record Number
+     */
+    @RequestMapping(
+            value = "volume",
+            params = {"num", "userId", "stream=true"},
+            method = RequestMethod.GET)
+    public ResponseEntity<StreamingResponseBody> streamVolumesByNumber(@RequestParam("num") String num,
+                                                                       @RequestParam("userId") int userId) {
+        LOGGER.info("Streaming volumes related to number {}", num);
+        return stream(generator -> RecordController.writeVolumesByNumber(num, userId, generator));
+    }
+
+    /**
+     * Search for volumes related to a record Number, one page at a time
+     *
+     * @return a page of volumes matching the given record Number, in volume order
+     */
+    @RequestMapping(
+            value = "volume",
+            params = {"num", "userId", "page"},
+            method = RequestMethod.GET)
+    public MappingJacksonValue getVolumePageByNumber(@RequestParam("num") String num,
+                                                     @RequestParam("userId") int userId,
+                                                     @RequestParam("page") int page,
+                                                     @RequestParam(value="pageSize", required=false, defaultValue="20") int pageSize,
+                                                     @RequestParam(value="fields", required=false) String fields,
+                                                     @RequestParam(value="expand", required=false) String expand)
+            throws SQLException {
+        LOGGER.info("Searching volumes related to number {}, page {}", num, page);
+        Projection projection = Projection.of(fields, expand);
+        return project(RecordController.getVolumesByNumber(num, page, pageSize, userId, projection), projection);
+    }
+
+    /**
+     * Get the changes made to a record, newest first. Pass the nextCursor of a page to get the one after it.
+     *
+     * @param id
+     * @return a page of changes with the names of the users who made them
+     */
+    @RequestMapping(
+            value = "records/{id}/history",
+            params = {"userId"},
+            method = RequestMethod.GET)
+    public CursorResults<HistoryEntry> getRecordHistory(@PathVariable("id") Integer id,
+                                                        @RequestParam("userId") int userId,
+                                                        @RequestParam(value="cursor", required=false) String cursor,
+                                                        @RequestParam(value="limit", required=false, defaultValue="20") int limit)
+                                                        throws SQLException {
+        return RecordController.getRecordHistory(id, userId, cursor, limit);
+    }
+
+    /**
+     * Get the changes made to a container, newest first. Pass the nextCursor of a page to get the one after it.
+     *
+     * @param id
+     * @return a page of changes with the names of the users who made them
+     */
+    @RequestMapping(
+            value = "containers/{id}/history",
+            params = {"userId"},
+            method = RequestMethod.GET)
+    public CursorResults<HistoryEntry> getContainerHistory(@PathVariable("id") Integer id,
+                                                           @RequestParam("userId") int userId,
+                                                           @RequestParam(value="cursor", required=false) String cursor,
+                                                           @RequestParam(value="limit", required=false, defaultValue="20") int limit)
+                                                           throws SQLException {
+        return ContainerController.getContainerHistory(id, userId, cursor, limit);
+    }
+
+    /**
+     * Get a record's notes, or a range of them. Without a Range header, offset and length select characters;
+     * with "Range: bytes=start-end" the UTF-8 bytes of the range are returned as 206 Partial Content.
+     *
+     * @param id
+     * @return the notes range, with the total length of the notes
+     */
+    @RequestMapping(
+            value = "records/{id}/notes",
+            params = {"userId"},
+            method = RequestMethod.GET)
+    public ResponseEntity<?> getRecordNotes(@PathVariable("id") Integer id,
+                                            @RequestParam("userId") int userId,
+                                            @RequestParam(value="offset", required=false, defaultValue="0") int offset,
+                                            @RequestParam(value="length", required=false) Integer length,
+                                            @RequestHeader(value="Range", required=false) String range)
+                                            throws SQLException {
+        // Checks that the record exists and that the user may see it, without loading the rest of it
+        RecordController.getRecordById(id, userId, Projection.ID_ONLY);
+        String notes = NoteTableController.getRecordNotes(id);
+        if (range != null) {
+            return NoteTableController.getNotesBytes(notes, range);
+        }
+        return new ResponseEntity<>(Notes.range(notes, offset, length), HttpStatus.OK);
     }
 
     /**
-     * Get audit logs
+     * Get a container's notes, or a range of them. Without a Range header, offset and length select characters;
+     * with "Range: bytes=start-end" the UTF-8 bytes of the range are returned as 206 Partial Content.
+     *
+     * @param id
+     * @return the notes range, with the total length of the notes
+     */
+    @RequestMapping(
+            value = "containers/{id}/notes",
+            params = {"userId"},
+            method = RequestMethod.GET)
+    public ResponseEntity<?> getContainerNotes(@PathVariable("id") Integer id,
+                                               @RequestParam("userId") int userId,
+                                               @RequestParam(value="offset", required=false, defaultValue="0") int offset,
+                                               @RequestParam(value="length", required=false) Integer length,
+                                               @RequestHeader(value="Range", required=false) String range)
+                                               throws SQLException {
+        // Checks that the container exists and that the user may see it, without loading the rest of it
+        ContainerController.getContainerById(id, userId, Projection.ID_ONLY);
+        String notes = NoteTableController.getContainerNotes(id);
+        if (range != null) {
+            return NoteTableController.getNotesBytes(notes, range);
+        }
+        return new ResponseEntity<>(Notes.range(notes, offset, length), HttpStatus.OK);
+    }
+
+    /**
+     * Get a page of audit logs, oldest first, optionally filtered. Pass the nextCursor of a page to get the one after it.
+     *
+     * @param user only entries by this user
+     * @param from only entries created at or after this time, in epoch milliseconds
+     * @param to only entries created before this time, in epoch milliseconds
+     * @return {"results": [...], "nextCursor": "..."}; nextCursor is left out on the last page
      */
     @RequestMapping(
             value = "auditlogs",
             method = RequestMethod.GET)
-    public List<AuditLogEntry> getAuditLogs() throws SQLException{
-        return AuditLogger.getLogs();
+    public ResponseEntity<StreamingResponseBody> getAuditLogs(@RequestParam(value="user", required=false) Integer user,
+                                                              @RequestParam(value="target", required=false) String target,
+                                                              @RequestParam(value="targetId", required=false) Integer targetId,
+                                                              @RequestParam(value="action", required=false) String action,
+                                                              @RequestParam(value="from", required=false) Long from,
+                                                              @RequestParam(value="to", required=false) Long to,
+                                                              @RequestParam(value="cursor", required=false) String cursor,
+                                                              @RequestParam(value="limit", required=false, defaultValue="100") int limit) {
+        // Validate before the response starts, so bad filters still get a 400
+        AuditLogQuery query = new AuditLogQuery(user, target, targetId, action, from, to, cursor, false, limit);
+        return stream(generator -> AuditLogger.writeLogs(query, generator));
+    }
+
+    /**
+     * Get audit log writer statistics
+     * @return
+     */
+    @RequestMapping(
+            value = "auditlogs/stats",
+            method = RequestMethod.GET)
+    public Map<String, Object> getAuditLogStats() {
+        return AuditLogger.getStats();
     }
 
     /**
@@ -364,8 +737,27 @@ public class RouteHandler {
             value = "records",
             params = {"ids","userId"},
             method = RequestMethod.GET)
-    public List<Record> getMultipleRecords(@RequestParam("ids") List<Integer> ids, @RequestParam("userId") int userId) throws SQLException {
-        return RecordController.getRecordsByIds(ids, true);
+    public MappingJacksonValue getMultipleRecords(@RequestParam("ids") List<Integer> ids, @RequestParam("userId") int userId,
+                                                  @RequestParam(value="fields", required=false) String fields,
+                                                  @RequestParam(value="expand", required=false) String expand) throws SQLException {
+        Projection projection = Projection.of(fields, expand);
+        return project(RecordController.getRecordsByIds(ids, projection), projection);
+    }
+
+    /**
+     * Stream records given record ids, in the order of ids. Each record is written as it is read, so any number
+     * of records is returned in constant memory. Records carry hasNotes and notesLength but not their notes.
+     *
+     * @param  ids
+     * @return list of records
+     */
+    @RequestMapping(
+            value = "records",
+            params = {"ids", "userId", "stream=true"},
+            method = RequestMethod.GET)
+    public ResponseEntity<StreamingResponseBody> streamMultipleRecords(@RequestParam("ids") List<Integer> ids,
+                                                                       @RequestParam("userId") int userId) {
+        return stream(generator -> RecordController.writeRecordsByIds(ids, generator));
     }
 
     /**
@@ -378,8 +770,27 @@ public class RouteHandler {
             value = "containers",
             params = {"ids","userId"},
             method = RequestMethod.GET)
-    public List<Container> getMultipleContainers(@RequestParam("ids") List<Integer> ids, @RequestParam("userId") int userId) throws SQLException {
-        return ContainerController.getContainersByIds(ids);
+    public MappingJacksonValue getMultipleContainers(@RequestParam("ids") List<Integer> ids, @RequestParam("userId") int userId,
+                                                     @RequestParam(value="fields", required=false) String fields,
+                                                     @RequestParam(value="expand", required=false) String expand) throws SQLException {
+        Projection projection = Projection.of(fields, expand);
+        return project(ContainerController.getContainersByIds(ids, projection), projection);
+    }
+
+    /**
+     * Stream containers given container ids, in the order of ids. Each container is written as it is read, so
+     * any number of containers is returned in constant memory.
+     *
+     * @param  ids
+     * @return list of containers
+     */
+    @RequestMapping(
+            value = "containers",
+            params = {"ids", "userId", "stream=true"},
+            method = RequestMethod.GET)
+    public ResponseEntity<StreamingResponseBody> streamMultipleContainers(@RequestParam("ids") List<Integer> ids,
+                                                                          @RequestParam("userId") int userId) {
+        return stream(generator -> ContainerController.writeContainersByIds(ids, generator));
     }
 
 }
@@ -0,0 +1,48 @@
+package com.discovery.channel.audit;
+
+import com.discovery.channel.exception.IllegalArgumentException;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AuditLogQueryTest {
+
+    @Test
+    public void testNoFilters() {
+        AuditLogQuery query = new AuditLogQuery(null, null, null, null, null, null, "", false, 100);
+        assertEquals("SELECT Id, UserId, Action, Target, TargetId, CreatedAt FROM auditlogs " +
+                "ORDER BY CreatedAt ASC, Id ASC LIMIT ?", query.toSql());
+    }
+
+    @Test
+    public void testFiltersAndCursor() {
+        String cursor = new AuditLogCursor(new Timestamp(1520000000000L), 7).encode();
+        AuditLogQuery query = new AuditLogQuery(5, "record", 12, null, 1510000000000L, null, cursor, true, 20);
+        assertEquals("SELECT Id, UserId, Action, Target, TargetId, CreatedAt FROM auditlogs " +
+                "WHERE UserId = ? AND Target = ? AND TargetId = ? AND CreatedAt >= ? " +
+                "AND (CreatedAt < ? OR (CreatedAt = ? AND Id < ?)) " +
+                "ORDER BY CreatedAt DESC, Id DESC LIMIT ?", query.toSql());
+    }
+
+    @Test
+    public void testCursorRoundTrip() {
+        AuditLogCursor decoded = AuditLogCursor.decode(new AuditLogCursor(new Timestamp(1520000000000L), 7).encode());
+        assertEquals(1520000000000L, decoded.getCreatedAt().getTime());
+        assertEquals(7, decoded.getId());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AuditLogQuery(null, "folder", null, null, null, null, "", false, 100));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AuditLogQuery(null, null, null, "READ", null, null, "", false, 100));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AuditLogQuery(null, null, null, null, null, null, "", false, AuditLogQuery.MAX_LIMIT + 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AuditLogQuery(null, null, null, null, null, null, "bm90IGEgY3Vyc29y", false, 100));
+    }
+}
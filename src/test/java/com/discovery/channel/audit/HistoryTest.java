@@ -0,0 +1,72 @@
+package com.discovery.channel.audit;
+
+import com.discovery.channel.model.CursorResults;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class HistoryTest {
+    private static final List<AuditLogEntry> ENTRIES = Arrays.asList(
+            new AuditLogEntry(9, 2, "UPDATE", "RECORD", 12, new Timestamp(1520000300000L)),
+            new AuditLogEntry(8, 3, "UPDATE", "RECORD", 12, new Timestamp(1520000200000L)),
+            new AuditLogEntry(7, 2, "CREATE", "RECORD", 12, new Timestamp(1520000100000L)));
+
+    @Test
+    public void testHistoryQuery() {
+        String cursor = new AuditLogCursor(new Timestamp(1520000200000L), 8).encode();
+        assertEquals("SELECT Id, UserId, Action, Target, TargetId, CreatedAt FROM auditlogs " +
+                "WHERE Target = ? AND TargetId = ? " +
+                "AND (CreatedAt < ? OR (CreatedAt = ? AND Id < ?)) " +
+                "ORDER BY CreatedAt DESC, Id DESC LIMIT ?",
+                AuditLogger.historyQuery(AuditLogger.Target.RECORD, 12, cursor, 2).toSql());
+    }
+
+    @Test
+    public void testCursorRoundTrip() throws SQLException {
+        CursorResults<HistoryEntry> page = AuditLogger.toHistory(new ArrayList<>(ENTRIES), 2, HistoryTest::names);
+        assertEquals(2, page.getResults().size());
+
+        // The next page starts after the last entry of this one
+        AuditLogCursor cursor = AuditLogCursor.decode(page.getNextCursor());
+        assertEquals(1520000200000L, cursor.getCreatedAt().getTime());
+        assertEquals(8, cursor.getId());
+
+        CursorResults<HistoryEntry> last = AuditLogger.toHistory(new ArrayList<>(ENTRIES.subList(2, 3)), 2,
+                HistoryTest::names);
+        assertEquals(1, last.getResults().size());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    public void testUserNamesResolvedOnce() throws SQLException {
+        List<Collection<Integer>> lookups = new ArrayList<>();
+        CursorResults<HistoryEntry> page = AuditLogger.toHistory(new ArrayList<>(ENTRIES), 3, userIds -> {
+            lookups.add(userIds);
+            return names(userIds);
+        });
+
+        assertEquals(1, lookups.size());
+        assertEquals(new HashSet<>(Arrays.asList(2, 3)), new HashSet<>(lookups.get(0)));
+        assertEquals("User 2", page.getResults().get(0).getUserName());
+        assertEquals("User 3", page.getResults().get(1).getUserName());
+    }
+
+    private static Map<Integer, String> names(Collection<Integer> userIds) {
+        Map<Integer, String> names = new HashMap<>();
+        for (int userId : userIds) {
+            names.put(userId, "User " + userId);
+        }
+        return names;
+    }
+}
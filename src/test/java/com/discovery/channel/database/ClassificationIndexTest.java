@@ -0,0 +1,58 @@
+package com.discovery.channel.database;
+
+import com.discovery.channel.model.Classification;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClassificationIndexTest {
+    private static final ClassificationIndex INDEX = new ClassificationIndex(
+            Arrays.asList(
+                    new Classification(1, "Projects", Classification.CLASSIFICATION_TYPE.T),
+                    new Classification(2, "Advisory", Classification.CLASSIFICATION_TYPE.T),
+                    new Classification(3, "Reports", Classification.CLASSIFICATION_TYPE.F),
+                    new Classification(4, "Budgets", Classification.CLASSIFICATION_TYPE.F)),
+            Arrays.asList(new int[] {1, 4}, new int[] {1, 3}, new int[] {2, 3}, new int[] {3, 99}));
+
+    @Test
+    public void testHierarchy() {
+        assertTrue(INDEX.isChild(1, 3));
+        assertTrue(INDEX.isChild(1, 4));
+        assertFalse(INDEX.isChild(2, 4));
+        assertFalse(INDEX.isChild(4, 1));
+
+        assertEquals(Arrays.asList(2, 1), ids(INDEX.getRoots()));
+        assertEquals(Arrays.asList(4, 3), ids(INDEX.getChildren(1)));
+        // Hierarchy rows pointing at missing classifications are not returned
+        assertEquals(Collections.emptyList(), ids(INDEX.getChildren(3)));
+    }
+
+    @Test
+    public void testRootsSortIgnoringCaseThenById() {
+        ClassificationIndex index = new ClassificationIndex(
+                Arrays.asList(
+                        new Classification(7, "budgets", Classification.CLASSIFICATION_TYPE.T),
+                        new Classification(6, "Budgets", Classification.CLASSIFICATION_TYPE.T),
+                        new Classification(5, "Advisory", Classification.CLASSIFICATION_TYPE.T)),
+                Collections.emptyList());
+        assertEquals(Arrays.asList(5, 6, 7), ids(index.getRoots()));
+    }
+
+    @Test
+    public void testBuildPath() {
+        assertEquals("Projects/Budgets", INDEX.buildPath(Arrays.asList(1, 4)));
+        assertEquals("Advisory/Reports", INDEX.buildPath(Arrays.asList(2, 99, 3)));
+        assertEquals("", INDEX.buildPath(Collections.emptyList()));
+    }
+
+    private static List<Integer> ids(List<Classification> classifications) {
+        return classifications.stream().map(Classification::getId).collect(Collectors.toList());
+    }
+}
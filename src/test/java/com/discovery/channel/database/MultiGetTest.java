@@ -0,0 +1,46 @@
+package com.discovery.channel.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MultiGetTest {
+
+    @Test
+    public void testArity() {
+        assertEquals(1, MultiGet.arity(1));
+        assertEquals(4, MultiGet.arity(2));
+        assertEquals(16, MultiGet.arity(16));
+        assertEquals(64, MultiGet.arity(17));
+        assertEquals(256, MultiGet.arity(256));
+    }
+
+    @Test
+    public void testDistinctKeepsRequestOrder() {
+        assertEquals(Arrays.asList(5, 1, 3), MultiGet.distinct(Arrays.asList(5, 1, 5, null, 3, 1)));
+    }
+
+    @Test
+    public void testChunk() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            ids.add(i);
+        }
+        List<List<Integer>> chunks = MultiGet.chunk(ids);
+        assertEquals(3, chunks.size());
+        assertEquals(256, chunks.get(0).size());
+        assertEquals(88, chunks.get(2).size());
+        assertEquals(Integer.valueOf(512), chunks.get(2).get(0));
+    }
+
+    @Test
+    public void testSplitIds() {
+        assertEquals(Arrays.asList(7, 12, 3), MultiGet.splitIds("7,12,3"));
+        assertEquals(Collections.emptyList(), MultiGet.splitIds(null));
+    }
+}
@@ -0,0 +1,67 @@
+package com.discovery.channel.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NoteCodecTest {
+
+    private static String repeat(String text, int times) {
+        return String.join("", Collections.nCopies(times, text));
+    }
+
+    @Test
+    public void testLongNotesAreCompressedAndChunked() {
+        String notes = repeat("Box 12 of the 2003 transcripts, reviewed by EDM. ", 5000);
+        List<String> chunks = NoteCodec.encode(notes);
+
+        assertEquals(NoteCodec.HEADER, chunks.get(0).charAt(0));
+        assertEquals(NoteCodec.DEFLATE, chunks.get(0).charAt(1));
+        for (String chunk : chunks) {
+            assertTrue(chunk.length() <= NoteCodec.CHUNK_SIZE);
+        }
+        assertEquals(notes, NoteCodec.decode(chunks));
+    }
+
+    @Test
+    public void testShortNotesAreStoredPlain() {
+        List<String> chunks = NoteCodec.encode("Fragile");
+        assertEquals(Collections.singletonList("" + NoteCodec.HEADER + NoteCodec.PLAIN + "Fragile"), chunks);
+        assertEquals("Fragile", NoteCodec.decode(chunks));
+    }
+
+    @Test
+    public void testPlainChunksKeepSurrogatePairsTogether() {
+        // Text that does not compress, with a surrogate pair that would straddle the first chunk boundary
+        Random random = new Random(319);
+        StringBuilder notes = new StringBuilder();
+        while (notes.length() < NoteCodec.CHUNK_SIZE - 3) {
+            notes.append((char) ('!' + random.nextInt(90)));
+        }
+        notes.append("📦");
+        while (notes.length() < 2 * NoteCodec.CHUNK_SIZE) {
+            notes.append((char) ('!' + random.nextInt(90)));
+        }
+
+        List<String> chunks = NoteCodec.encode(notes.toString());
+        assertEquals(NoteCodec.PLAIN, chunks.get(0).charAt(1));
+        for (String chunk : chunks) {
+            assertFalse(Character.isHighSurrogate(chunk.charAt(chunk.length() - 1)));
+        }
+        assertEquals(notes.toString(), NoteCodec.decode(chunks));
+    }
+
+    @Test
+    public void testLegacyRowsAreReadAsPlainText() {
+        assertEquals("Legacy note, split over rows", NoteCodec.decode(Arrays.asList("Legacy note, ", "split over rows")));
+        assertNull(NoteCodec.decode(Collections.emptyList()));
+    }
+}
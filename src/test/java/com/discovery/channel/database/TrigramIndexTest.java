@@ -0,0 +1,67 @@
+package com.discovery.channel.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TrigramIndexTest {
+
+    @Test
+    public void testFind() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(3, "EDM-2003/001");
+        index.put(1, "edm-2003/002");
+        index.put(2, "KEL-2004/001");
+        index.put(4, "2018/001-EDM");
+        index.put(5, "ABCAB");
+
+        assertEquals(Arrays.asList(1, 3, 4), index.find("EDM"));
+        assertEquals(Arrays.asList(1, 3), index.find("m-2003"));
+        assertEquals(Arrays.asList(2, 3, 4), index.find("/001"));
+        assertEquals(Collections.singletonList(1), index.find("003/002"));
+        // Every trigram of "BCABC" occurs in "ABCAB", but not the whole string
+        assertEquals(Collections.emptyList(), index.find("BCABC"));
+        assertEquals(Collections.emptyList(), index.find("xyz"));
+    }
+
+    @Test
+    public void testUpdates() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "EDM-2003/001");
+        index.put(2, "EDM-2003/002");
+        index.put(1, "EDM-2003/001:01");
+        index.remove(2);
+
+        assertEquals(Collections.singletonList(1), index.find(":01"));
+        assertEquals(Collections.emptyList(), index.find("002"));
+        assertEquals(1, index.size());
+
+        index.remove(1);
+        assertEquals(Collections.emptyList(), index.find("EDM"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testNonAsciiNumbersAreAlwaysCandidates() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "EDM-2003/001");
+        index.put(2, "Montréal-001");
+
+        assertEquals(Arrays.asList(1, 2), index.find("001"));
+        assertEquals(Collections.singletonList(2), index.find("xyz"));
+    }
+
+    @Test
+    public void testCanSearch() {
+        assertTrue(TrigramIndex.canSearch("EDM"));
+        assertFalse(TrigramIndex.canSearch("ED"));
+        assertFalse(TrigramIndex.canSearch("EDM%"));
+        assertFalse(TrigramIndex.canSearch("EDM_2003"));
+        assertFalse(TrigramIndex.canSearch("Montréal"));
+    }
+}
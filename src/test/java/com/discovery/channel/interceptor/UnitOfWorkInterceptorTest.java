@@ -0,0 +1,38 @@
+package com.discovery.channel.interceptor;
+
+import com.discovery.channel.database.UnitOfWork;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class UnitOfWorkInterceptorTest {
+    private final UnitOfWorkInterceptor interceptor = new UnitOfWorkInterceptor();
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Test
+    public void testStreamingRequestDoesNotLeaveUnitBound() {
+        // A streaming request: the first dispatch starts async handling, the async dispatch completes it
+        MockHttpServletRequest streaming = new MockHttpServletRequest();
+        interceptor.preHandle(streaming, response, null);
+        UnitOfWork streamingUnit = (UnitOfWork) streaming.getAttribute(UnitOfWorkInterceptor.UNIT_OF_WORK_ATTRIBUTE);
+        interceptor.afterConcurrentHandlingStarted(streaming, response, null);
+        assertNull(streaming.getAttribute(UnitOfWorkInterceptor.UNIT_OF_WORK_ATTRIBUTE));
+        interceptor.preHandle(streaming, response, null);
+        interceptor.afterCompletion(streaming, response, null, null);
+
+        // A normal request on the same thread gets a unit of its own
+        MockHttpServletRequest normal = new MockHttpServletRequest();
+        interceptor.preHandle(normal, response, null);
+        UnitOfWork normalUnit = (UnitOfWork) normal.getAttribute(UnitOfWorkInterceptor.UNIT_OF_WORK_ATTRIBUTE);
+        assertNotSame(streamingUnit, normalUnit);
+        interceptor.afterCompletion(normal, response, null, null);
+
+        // and nothing is left bound afterwards
+        try (UnitOfWork next = UnitOfWork.begin()) {
+            assertNotSame(normalUnit, next);
+        }
+    }
+}
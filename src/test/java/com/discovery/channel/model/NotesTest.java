@@ -0,0 +1,40 @@
+package com.discovery.channel.model;
+
+import com.discovery.channel.exception.IllegalArgumentException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class NotesTest {
+
+    @Test
+    public void testRange() {
+        Notes notes = Notes.range("Box 12, shelf 3", 4, 2);
+        assertEquals("12", notes.getText());
+        assertEquals(4, notes.getOffset());
+        assertEquals(2, notes.getLength());
+        assertEquals(15, notes.getTotalLength());
+
+        assertEquals("shelf 3", Notes.range("Box 12, shelf 3", 8, null).getText());
+        assertEquals("3", Notes.range("Box 12, shelf 3", 14, 100).getText());
+    }
+
+    @Test
+    public void testRangeCountsCodePoints() {
+        Notes notes = Notes.range("📦 Box 12", 0, 3);
+        assertEquals("📦 B", notes.getText());
+        assertEquals(8, notes.getTotalLength());
+    }
+
+    @Test
+    public void testRangePastTheEnd() {
+        Notes notes = Notes.range("Box 12", 50, 10);
+        assertEquals("", notes.getText());
+        assertEquals(6, notes.getOffset());
+        assertEquals(0, notes.getLength());
+
+        assertEquals(0, Notes.range(null, 0, null).getTotalLength());
+        assertThrows(IllegalArgumentException.class, () -> Notes.range("Box 12", -1, null));
+    }
+}
@@ -0,0 +1,43 @@
+package com.discovery.channel.model;
+
+import com.discovery.channel.exception.IllegalArgumentException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProjectionTest {
+
+    @Test
+    public void testNoParametersIncludeEverythingButExpandedParts() {
+        Projection projection = Projection.of(null, "");
+        assertSame(Projection.ALL, projection);
+        assertTrue(projection.includes("title"));
+        assertFalse(projection.expands(Projection.NOTES));
+    }
+
+    @Test
+    public void testFieldsKeepIdentityAndExpandedParts() {
+        Projection projection = Projection.of("number, title", "notes");
+        assertTrue(projection.includes("number"));
+        assertTrue(projection.includes("id"));
+        assertTrue(projection.includes(Projection.NOTES));
+        assertTrue(projection.expands(Projection.NOTES));
+        assertFalse(projection.includes("classifications"));
+        assertFalse(projection.includesAny("hasNotes", "notesLength"));
+    }
+
+    @Test
+    public void testIdOnlyLeavesOutNotes() {
+        assertTrue(Projection.ID_ONLY.includes("id"));
+        assertFalse(Projection.ID_ONLY.includes(Projection.NOTES));
+        assertFalse(Projection.ID_ONLY.includesAny("title", "hasNotes", "notesLength", "classifications"));
+    }
+
+    @Test
+    public void testUnknownExpand() {
+        assertThrows(IllegalArgumentException.class, () -> Projection.of(null, "children"));
+    }
+}
@@ -0,0 +1,33 @@
+package com.discovery.channel.model;
+
+import com.discovery.channel.exception.IllegalArgumentException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SearchCursorTest {
+
+    @Test
+    public void testRoundTrip() {
+        SearchCursor cursor = new SearchCursor(SearchCursor.DocumentType.RECORD, "EDM-2003/001:02", 42, 3);
+        SearchCursor decoded = SearchCursor.decode(cursor.encode());
+        assertEquals(SearchCursor.DocumentType.RECORD, decoded.getType());
+        assertEquals("EDM-2003/001:02", decoded.getNumber());
+        assertEquals(42, decoded.getId());
+        assertEquals(3, decoded.getPage());
+    }
+
+    @Test
+    public void testEmptyCursorStartsFromFirstPage() {
+        assertNull(SearchCursor.decode(""));
+        assertNull(SearchCursor.decode(null));
+    }
+
+    @Test
+    public void testInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("WDoxOjI"));
+    }
+}
@@ -3,6 +3,8 @@ package com.discovery.channel.model;
 import com.discovery.channel.model.RecordNumber;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestRecordNumber {
@@ -44,11 +46,23 @@ public class TestRecordNumber {
 
     @Test
     public void testFillAutoGenField() {
-        String filledNum = RecordNumber.NUMBER_PATTERN.CLIENT.fillAutoGenField(VALID_CLIENT);
+        String filledNum = RecordNumber.NUMBER_PATTERN.CLIENT.fillAutoGenField(VALID_CLIENT, 7);
         assertTrue(filledNum.matches(RecordNumber.NUMBER_PATTERN.CLIENT.regex + "\\.[0-9]{3}"));
+        assertEquals("edm-CLIENT.007", filledNum);
 
-        filledNum = RecordNumber.NUMBER_PATTERN.SUBJECT.fillAutoGenField(VALID_SUBJECT);
+        filledNum = RecordNumber.NUMBER_PATTERN.SUBJECT.fillAutoGenField(VALID_SUBJECT, 123);
         assertTrue(filledNum.matches(RecordNumber.NUMBER_PATTERN.SUBJECT.regex + "/[0-9]{3}"));
+        assertEquals("edm-2017/123", filledNum);
+
+        assertEquals(VALID_TASK, RecordNumber.NUMBER_PATTERN.TASK.fillAutoGenField(VALID_TASK, 1));
+    }
+
+    @Test
+    public void testAutoGenPrefix() {
+        assertTrue(RecordNumber.NUMBER_PATTERN.PROPOSAL.hasAutoGenField());
+        assertFalse(RecordNumber.NUMBER_PATTERN.ACCOUNTING.hasAutoGenField());
+        assertEquals("edm_P_1092.", RecordNumber.NUMBER_PATTERN.PROPOSAL.getAutoGenPrefix(VALID_PROPOSAL));
+        assertEquals(999, RecordNumber.NUMBER_PATTERN.SUBJECT.getMaxAutoGenValue());
 
     }
 }